@@ -0,0 +1,55 @@
+package com.example.auth.jmh;
+
+import com.example.auth.config.SigningAlgorithm;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.converter.RsaKeyConverters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+/**
+ * Signing keys for benchmarks, without starting Spring. RS256 uses the service's RSA key from the
+ * classpath; the ES256 and EdDSA keys are not part of the build, so fresh P-256 and Ed25519 keys are
+ * generated (their cost depends only on the curve, not on the key).
+ */
+public final class BenchmarkKeys {
+
+    private BenchmarkKeys() {
+    }
+
+    public static JWK load(SigningAlgorithm algorithm) {
+        try {
+            return switch (algorithm) {
+                case RS256 -> loadRsa();
+                case ES256 -> new ECKeyGenerator(Curve.P_256).keyID(algorithm.getKeyId())
+                        .algorithm(algorithm.toJwsAlgorithm()).generate();
+                case EdDSA -> new OctetKeyPairGenerator(Curve.Ed25519).keyID(algorithm.getKeyId())
+                        .algorithm(algorithm.toJwsAlgorithm()).generate();
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Cannot generate a key for " + algorithm, e);
+        }
+    }
+
+    private static JWK loadRsa() throws IOException {
+        RSAPublicKey publicKey;
+        RSAPrivateKey privateKey;
+        try (InputStream pub = new ClassPathResource("auth.pub").getInputStream();
+             InputStream key = new ClassPathResource("auth.key").getInputStream()) {
+            publicKey = RsaKeyConverters.x509().convert(pub);
+            privateKey = RsaKeyConverters.pkcs8().convert(key);
+        }
+        return new RSAKey.Builder(publicKey).privateKey(privateKey).keyID(SigningAlgorithm.RS256.getKeyId()).build();
+    }
+}
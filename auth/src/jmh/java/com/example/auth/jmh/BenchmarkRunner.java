@@ -0,0 +1,117 @@
+package com.example.auth.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entry point of the benchmark profile.
+ * <ul>
+ *     <li>{@code run <label> [include-regex]} runs the benchmarks (throughput and sampled latency
+ *     percentiles, with the GC profiler for allocation rate) and writes {@code jmh-results/<label>.json}.
+ *     Use the commit id as label to keep a history.</li>
+ *     <li>{@code compare <baseline-label> <label> [threshold-percent]} compares two runs and exits with
+ *     status 1 if any benchmark got slower than the threshold (default 10%).</li>
+ * </ul>
+ */
+public class BenchmarkRunner {
+
+    private static final Path RESULTS = Path.of("jmh-results");
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && "run".equals(args[0])) {
+            run(args[1], args.length > 2 ? args[2] : "com\\.example\\.auth\\.jmh\\..*");
+        } else if (args.length >= 3 && "compare".equals(args[0])) {
+            double threshold = args.length > 3 ? Double.parseDouble(args[3]) : 10.0;
+            System.exit(compare(args[1], args[2], threshold) ? 1 : 0);
+        } else {
+            System.err.println("usage: run <label> [include-regex] | compare <baseline-label> <label> [threshold-percent]");
+            System.exit(2);
+        }
+    }
+
+    private static void run(String label, String include) throws Exception {
+        Files.createDirectories(RESULTS);
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result(label).toString())
+                .build();
+        new Runner(options).run();
+        System.out.println("Results written to " + result(label).toAbsolutePath());
+    }
+
+    /**
+     * @return true if at least one benchmark regressed by more than the threshold
+     */
+    private static boolean compare(String baselineLabel, String label, double threshold) throws IOException {
+        Map<String, JsonNode> baseline = load(baselineLabel);
+        Map<String, JsonNode> current = load(label);
+        boolean regressed = false;
+
+        System.out.printf("%-80s %12s %12s %9s %14s%n", "benchmark", baselineLabel, label, "change", "alloc B/op");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %12s %12.3f%n", entry.getKey(), "-", score(entry.getValue()));
+                continue;
+            }
+            double oldScore = score(before);
+            double newScore = score(entry.getValue());
+            double change = (newScore - oldScore) / oldScore * 100;
+            // throughput: higher is better; sampled time per operation: lower is better
+            double slowdown = "thrpt".equals(entry.getValue().path("mode").asText()) ? -change : change;
+            boolean flagged = slowdown > threshold;
+            regressed |= flagged;
+
+            System.out.printf("%-80s %12.3f %12.3f %+8.1f%% %14s%s%n", entry.getKey(), oldScore, newScore, change,
+                    allocation(before) + " -> " + allocation(entry.getValue()), flagged ? "  REGRESSION" : "");
+        }
+        return regressed;
+    }
+
+    private static Map<String, JsonNode> load(String label) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(result(label).toFile())) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                .replace("com.example.auth.jmh.", ""));
+        Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+        while (params.hasNext()) {
+            Map.Entry<String, JsonNode> param = params.next();
+            key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.append(" [").append(result.path("mode").asText()).append(']').toString();
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOCATION);
+        return metric.isMissingNode() ? "-" : String.valueOf(Math.round(metric.path("score").asDouble()));
+    }
+
+    private static Path result(String label) {
+        return RESULTS.resolve(label + ".json");
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.auth.jmh;
+
+import com.example.auth.config.SigningAlgorithm;
+import com.example.auth.services.AuthJwtDecoder;
+import com.example.auth.services.ReferenceTokenStore;
+import com.example.auth.services.TokenRevocationService;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing and validation as wired in SecurityConfig: {@code encode} builds the same claims
+ * as AuthController.token, {@code decode} is the bare NimbusJwtDecoder and
+ * {@code decodeWithRevocationCheck} adds the AuthJwtDecoder deny-list lookup used by /auth/validate
+ * and {@code decodeCached} is the same with the verified-token cache hit on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public SigningAlgorithm algorithm;
+
+    private JwtEncoder encoder;
+    private JwtDecoder decoder;
+    private JwtDecoder authDecoder;
+    private JwtDecoder cachingAuthDecoder;
+    private String token;
+    private String userId;
+
+    @Setup
+    public void setUp() {
+        JWK jwk = BenchmarkKeys.load(algorithm);
+        encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk)));
+
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(Set.of(algorithm.toJwsAlgorithm()),
+                new ImmutableJWKSet<>(new JWKSet(jwk.toPublicJWK()))));
+        processor.setJWTClaimsSetVerifier((claims, context) -> { });
+        decoder = new NimbusJwtDecoder(processor);
+
+        // the broadcast path is never taken here, so no RabbitTemplate is needed
+        ReferenceTokenStore referenceTokenStore = new ReferenceTokenStore(1000);
+        TokenRevocationService revocationService = new TokenRevocationService(null, referenceTokenStore, 300, 10_000, 0.01);
+        authDecoder = new AuthJwtDecoder(decoder, referenceTokenStore, revocationService, 0);
+        cachingAuthDecoder = new AuthJwtDecoder(decoder, referenceTokenStore, revocationService, 10_000);
+
+        userId = UUID.randomUUID().toString();
+        token = encode();
+    }
+
+    @Benchmark
+    public String encode() {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .id(UUID.randomUUID().toString())
+                .issuer("self")
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(300))
+                .subject("benchmark")
+                .claim("scope", "ROLE_USER")
+                .claim("userId", userId)
+                .build();
+        return encoder.encode(JwtEncoderParameters.from(JwsHeader.with(algorithm).build(), claims)).getTokenValue();
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return decoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeWithRevocationCheck() {
+        return authDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeCached() {
+        return cachingAuthDecoder.decode(token);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.auth.jmh;
+
+import com.example.auth.dtos.RegisterDTO;
+import com.example.auth.dtos.annotation.UsernameValidation;
+import com.example.auth.dtos.annotation.validators.UsernameRestriction;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The @UsernameRestriction check on its own ({@code isValid}) and as part of validating a whole
+ * RegisterDTO the way @Valid does on /auth/register ({@code validateRegisterDto}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsernameValidationBenchmark {
+
+    private UsernameValidation usernameValidation;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private RegisterDTO registerDTO;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        usernameValidation = new UsernameValidation();
+        usernameValidation.initialize(RegisterDTO.class.getDeclaredField("username").getAnnotation(UsernameRestriction.class));
+
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        registerDTO = new RegisterDTO("benchmarkUser", "password", "Benchmark User", "Street 1", 30);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return usernameValidation.isValid("benchmarkUser", null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegisterDTO>> validateRegisterDto() {
+        return validator.validate(registerDTO);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.auth.config;
+
+import com.example.auth.utils.StripedTokenBucketLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles login attempts on POST /auth/token per client IP and per username before the
+ * BasicAuthenticationFilter hands the credentials to BCrypt. A rejected attempt costs a hash
+ * map lookup and is answered with 429 and Retry-After.
+ * <p>
+ * Registered in the security filter chain only (not a @Component, which would also put it in
+ * the servlet filter chain).
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoginThrottleFilter.class);
+    private static final String LOGIN_PATH = "/auth/token";
+    // set by nginx to the address of the connecting client
+    private static final String REAL_IP_HEADER = "X-Real-IP";
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final StripedTokenBucketLimiter ipLimiter;
+    private final StripedTokenBucketLimiter usernameLimiter;
+
+    public LoginThrottleFilter(StripedTokenBucketLimiter ipLimiter, StripedTokenBucketLimiter usernameLimiter) {
+        this.ipLimiter = ipLimiter;
+        this.usernameLimiter = usernameLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LOGIN_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String ip = request.getHeader(REAL_IP_HEADER);
+        if (ip == null || ip.isBlank()) {
+            ip = request.getRemoteAddr();
+        }
+        long waitNanos = ipLimiter.tryAcquire(ip);
+        if (waitNanos == 0) {
+            String username = basicUsername(request);
+            if (username != null) {
+                waitNanos = usernameLimiter.tryAcquire(username);
+            }
+        }
+        if (waitNanos > 0) {
+            LOGGER.debug("Login attempt from {} throttled", ip);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1)));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String basicUsername(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            return null;
+        }
+        try {
+            String credentials = new String(Base64.getDecoder().decode(header.substring(BASIC_PREFIX.length()).trim()),
+                    StandardCharsets.UTF_8);
+            int colon = credentials.indexOf(':');
+            return colon < 0 ? null : credentials.substring(0, colon);
+        } catch (IllegalArgumentException e) {
+            // malformed header; BasicAuthenticationFilter rejects it
+            return null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.auth.config;
 
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -12,15 +13,24 @@ import org.springframework.context.annotation.Configuration;
 public class RabbitMQConfig {
 
     public static final String USER_EXCHANGE = "user-exchange";
+    public static final String REVOCATION_EXCHANGE = "auth-revocation-exchange";
 
     @Bean
     public TopicExchange userExchange() {
         return new TopicExchange(USER_EXCHANGE);
     }
 
+    @Bean
+    public FanoutExchange revocationExchange() {
+        return new FanoutExchange(REVOCATION_EXCHANGE);
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+        // every event gets a unique message id, kept through the spool, so consumers can drop redeliveries
+        converter.setCreateMessageIds(true);
+        return converter;
     }
 
     @Bean
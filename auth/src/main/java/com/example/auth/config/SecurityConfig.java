@@ -16,21 +16,47 @@
 
 package com.example.auth.config;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import com.example.auth.services.AuthJwtDecoder;
 import com.example.auth.services.JpaUserDetailsService;
+import com.example.auth.services.ReferenceTokenStore;
+import com.example.auth.services.TokenRevocationService;
+import com.example.auth.utils.StripedTokenBucketLimiter;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.JWKGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -46,6 +72,7 @@ import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
 import org.springframework.security.oauth2.server.resource.web.access.BearerTokenAccessDeniedHandler;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 /**
  * Security configuration for the main application.
@@ -55,18 +82,50 @@ import org.springframework.security.web.SecurityFilterChain;
 @Configuration
 public class SecurityConfig {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecurityConfig.class);
+
     @Value("${jwt.public.key}")
     RSAPublicKey key;
 
     @Value("${jwt.private.key}")
     RSAPrivateKey priv;
 
+    @Value("${jwt.signing.es256-key}")
+    Resource es256Key;
+
+    @Value("${jwt.signing.eddsa-key}")
+    Resource eddsaKey;
+
+    @Value("${jwt.signing.algorithm}")
+    SigningAlgorithm signingAlgorithm;
+
+    @Value("${auth.introspection.cache-size}")
+    int verifiedTokenCacheSize;
+
+    @Value("${login.throttle.enabled}")
+    boolean loginThrottleEnabled;
+
+    @Value("${login.throttle.ip.capacity}")
+    double ipCapacity;
+
+    @Value("${login.throttle.ip.refill-per-second}")
+    double ipRefillPerSecond;
+
+    @Value("${login.throttle.username.capacity}")
+    double usernameCapacity;
+
+    @Value("${login.throttle.username.refill-per-second}")
+    double usernameRefillPerSecond;
+
+    @Value("${login.throttle.max-keys}")
+    int loginThrottleMaxKeys;
+
     @Autowired
     private JpaUserDetailsService userDetailsService; // Inject your new service
 
     @Bean
-    public PasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder encoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
@@ -74,10 +133,12 @@ public class SecurityConfig {
         // @formatter:off
     http
             .authorizeHttpRequests((authorize) -> authorize
-                    .requestMatchers("/auth/token", "/auth/register", "/auth/validate", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                    .requestMatchers(HttpMethod.DELETE, "/auth/token", "/auth/token/user/**").authenticated()
+                    .requestMatchers(HttpMethod.POST, "/auth/delete/batch").hasAuthority("SCOPE_ROLE_ADMIN")
+                    .requestMatchers("/auth/token", "/auth/register", "/auth/validate", "/auth/jwks", "/auth/username-available", "/actuator/health", "/actuator/prometheus", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                     .anyRequest().authenticated()
             )
-            .csrf((csrf) -> csrf.ignoringRequestMatchers("/auth/token", "/auth/register", "/auth/validate", "/auth/delete"))
+            .csrf((csrf) -> csrf.ignoringRequestMatchers("/auth/token", "/auth/register", "/auth/register/batch", "/auth/validate", "/auth/introspect/batch", "/auth/delete", "/auth/delete/batch"))
             .httpBasic(Customizer.withDefaults())
             .oauth2ResourceServer(jwt -> jwt.jwt(Customizer.withDefaults()))
             .sessionManagement((session) -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -86,6 +147,13 @@ public class SecurityConfig {
                     .accessDeniedHandler(new BearerTokenAccessDeniedHandler())
             );
     // @formatter:on
+        if (loginThrottleEnabled) {
+            // runs before the credentials reach DaoAuthenticationProvider (and BCrypt)
+            http.addFilterBefore(new LoginThrottleFilter(
+                    new StripedTokenBucketLimiter(ipCapacity, ipRefillPerSecond, loginThrottleMaxKeys),
+                    new StripedTokenBucketLimiter(usernameCapacity, usernameRefillPerSecond, loginThrottleMaxKeys)),
+                    BasicAuthenticationFilter.class);
+        }
         return http.build();
     }
 
@@ -99,16 +167,74 @@ public class SecurityConfig {
     }
 
 
+    /**
+     * One key per {@link SigningAlgorithm}. All of them are published on /auth/jwks and accepted
+     * on verification, so switching the signing algorithm does not invalidate tokens in flight.
+     */
+    @Bean
+    JWKSet jwkSet() throws IOException, ParseException, JOSEException {
+        JWK rsa = new RSAKey.Builder(this.key).privateKey(this.priv)
+                .keyID(SigningAlgorithm.RS256.getKeyId())
+                .algorithm(JWSAlgorithm.RS256)
+                .keyUse(KeyUse.SIGNATURE)
+                .build();
+        JWK ec = loadSigningKey(SigningAlgorithm.ES256, es256Key);
+        JWK okp = loadSigningKey(SigningAlgorithm.EdDSA, eddsaKey);
+        return new JWKSet(List.of(rsa, ec, okp));
+    }
+
+    /**
+     * The ES256 and EdDSA keys come from outside the build (jwt.signing.es256-key / eddsa-key).
+     * Startup fails if the key of the configured signing algorithm is missing; any other missing
+     * key is replaced by a throwaway one, which is published but never signs anything.
+     */
+    private JWK loadSigningKey(SigningAlgorithm algorithm, Resource resource) throws IOException, ParseException, JOSEException {
+        if (resource.exists()) {
+            return JWK.parse(resource.getContentAsString(StandardCharsets.UTF_8));
+        }
+        if (algorithm == signingAlgorithm) {
+            throw new IllegalStateException("No " + algorithm.getName() + " signing key at " + resource.getDescription()
+                    + "; set JWT_" + algorithm.name().toUpperCase() + "_KEY to the JWK file");
+        }
+        LOGGER.warn("No {} key at {}, using a generated one that is only published", algorithm.getName(), resource.getDescription());
+        JWKGenerator<? extends JWK> generator = algorithm == SigningAlgorithm.ES256
+                ? new ECKeyGenerator(Curve.P_256)
+                : new OctetKeyPairGenerator(Curve.Ed25519);
+        return generator.keyID(algorithm.getKeyId())
+                .algorithm(algorithm.toJwsAlgorithm())
+                .keyUse(KeyUse.SIGNATURE)
+                .generate();
+    }
+
     @Bean
-    JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(this.key).build();
+    JwtDecoder jwtDecoder(JWKSet jwkSet, ReferenceTokenStore referenceTokenStore, TokenRevocationService tokenRevocationService,
+                          MeterRegistry meterRegistry) {
+        Set<JWSAlgorithm> algorithms = Arrays.stream(SigningAlgorithm.values())
+                .map(SigningAlgorithm::toJwsAlgorithm)
+                .collect(Collectors.toSet());
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, new ImmutableJWKSet<>(jwkSet.toPublicJWKSet())));
+        // claims are validated by NimbusJwtDecoder's own validators
+        processor.setJWTClaimsSetVerifier((claims, context) -> { });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        // only real signature checks are timed, hits of AuthJwtDecoder's cache are not
+        Timer verifyTimer = Timer.builder("auth.jwt.verify")
+                .description("Time spent verifying JWT signatures and claims")
+                .register(meterRegistry);
+        JwtDecoder timedDecoder = token -> verifyTimer.record(() -> decoder.decode(token));
+        return new AuthJwtDecoder(timedDecoder, referenceTokenStore, tokenRevocationService, verifiedTokenCacheSize);
     }
 
     @Bean
-    JwtEncoder jwtEncoder() {
-        JWK jwk = new RSAKey.Builder(this.key).privateKey(this.priv).build();
+    JwtEncoder jwtEncoder(JWKSet jwkSet, MeterRegistry meterRegistry) {
+        JWK jwk = jwkSet.getKeyByKeyId(signingAlgorithm.getKeyId());
         JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
-        return new NimbusJwtEncoder(jwks);
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(jwks);
+        Timer signTimer = Timer.builder("auth.jwt.sign")
+                .description("Time spent signing JWTs")
+                .tag("algorithm", signingAlgorithm.getName())
+                .register(meterRegistry);
+        return parameters -> signTimer.record(() -> encoder.encode(parameters));
     }
 
 }
\ No newline at end of file
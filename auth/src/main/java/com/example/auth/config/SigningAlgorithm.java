@@ -0,0 +1,36 @@
+package com.example.auth.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+
+/**
+ * Algorithms auth can sign tokens with, selected by {@code jwt.signing.algorithm}. Each one has
+ * its own key in the JWK set, looked up by key id.
+ */
+public enum SigningAlgorithm implements JwsAlgorithm {
+    /** RSA 2048 PKCS#1 v1.5 with SHA-256, the original algorithm */
+    RS256("auth-rs256"),
+    /** ECDSA on P-256 with SHA-256 */
+    ES256("auth-es256"),
+    /** Ed25519 (Spring's SignatureAlgorithm enum has no constant for it) */
+    EdDSA("auth-eddsa");
+
+    private final String keyId;
+
+    SigningAlgorithm(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public JWSAlgorithm toJwsAlgorithm() {
+        return JWSAlgorithm.parse(name());
+    }
+
+    @Override
+    public String getName() {
+        return name();
+    }
+}
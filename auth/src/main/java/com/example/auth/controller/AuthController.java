@@ -2,20 +2,35 @@ package com.example.auth.controller;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import com.example.auth.config.SigningAlgorithm;
+import com.example.auth.dtos.IntrospectionResultDTO;
 import com.example.auth.dtos.PersonDTO;
 import com.example.auth.dtos.RegisterDTO;
+import com.example.auth.dtos.RegisterResultDTO;
+import com.example.auth.handlers.exceptions.model.CustomException;
+import com.example.auth.handlers.exceptions.model.ResourceNotFoundException;
 import com.example.auth.services.PersonService;
+import com.example.auth.services.TokenIntrospectionService;
+import com.example.auth.services.UsernameAvailabilityService;
+import com.example.auth.services.ReferenceTokenStore;
+import com.example.auth.services.TokenRevocationService;
+import com.nimbusds.jose.jwk.JWKSet;
 import jakarta.validation.Valid;
 import org.apache.coyote.Response;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -39,6 +54,36 @@ public class AuthController {
     @Autowired
     JwtDecoder decoder;
 
+    @Autowired
+    ReferenceTokenStore referenceTokenStore;
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    JWKSet jwkSet;
+
+    @Autowired
+    TokenIntrospectionService tokenIntrospectionService;
+
+    @Autowired
+    UsernameAvailabilityService usernameAvailabilityService;
+
+    @Value("${auth.introspection.batch.max-size}")
+    int introspectionBatchMaxSize;
+
+    @Value("${auth.token.expiry-seconds}")
+    long tokenExpirySeconds;
+
+    @Value("${jwt.signing.algorithm}")
+    SigningAlgorithm signingAlgorithm;
+
+    @Value("${register.batch.max-size}")
+    int registerBatchMaxSize;
+
+    @Value("${auth.reference-token.clients}")
+    Set<String> referenceTokenClients;
+
     @PostMapping("/register")
     public ResponseEntity<Void> register(@Valid @RequestBody RegisterDTO registerDTO) {
         UUID id = personService.insert(registerDTO);
@@ -50,21 +95,114 @@ public class AuthController {
         return ResponseEntity.created(location).build();
     }
 
+    /**
+     * Lets the signup form check a username as it is typed; most answers come from memory.
+     */
+    @GetMapping("/username-available")
+    public ResponseEntity<Map<String, Object>> usernameAvailable(@RequestParam String username) {
+        return ResponseEntity.ok(Map.of("username", username, "available", usernameAvailabilityService.isAvailable(username)));
+    }
+
+    @PostMapping("/register/batch")
+    public ResponseEntity<List<RegisterResultDTO>> registerBatch(@RequestBody List<RegisterDTO> registerDTOs, Authentication authentication) {
+        try {
+            personService.getPersonByUsernameAndAdmin(authentication.getName());
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (registerDTOs.size() > registerBatchMaxSize) {
+            throw new CustomException("Batch too large", HttpStatus.BAD_REQUEST, RegisterDTO.class.getSimpleName(),
+                    List.of("at most " + registerBatchMaxSize + " users can be registered per request"));
+        }
+        return ResponseEntity.ok(personService.insertBatch(registerDTOs));
+    }
+
     @GetMapping("/validate")
-    public ResponseEntity<Void> validate() {
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> validate(@AuthenticationPrincipal Jwt jwt) {
+        if (jwt == null) {
+            return ResponseEntity.ok().build();
+        }
+        // nginx forwards these to the services, which cannot parse opaque reference tokens themselves
+        return ResponseEntity.ok()
+                .header("X-Auth-Subject", jwt.getSubject())
+                .header("X-Auth-User-Id", String.valueOf(jwt.getClaims().get("userId")))
+                .header("X-Auth-Scope", jwt.getClaimAsString("scope"))
+                .build();
+    }
+
+    /**
+     * Validates many tokens in one call, for services that would otherwise hit /auth/validate once
+     * per token. Invalid tokens are reported as inactive instead of failing the request.
+     */
+    @PostMapping("/introspect/batch")
+    public ResponseEntity<List<IntrospectionResultDTO>> introspectBatch(@RequestBody List<String> tokens) {
+        if (tokens.size() > introspectionBatchMaxSize) {
+            throw new CustomException("Batch too large", HttpStatus.BAD_REQUEST, "Token",
+                    List.of("at most " + introspectionBatchMaxSize + " tokens can be introspected per request"));
+        }
+        return ResponseEntity.ok(tokenIntrospectionService.introspect(tokens));
+    }
+
+    /**
+     * Public keys for verifying the JWTs issued here, for services that validate tokens themselves.
+     */
+    @GetMapping("/jwks")
+    public Map<String, Object> jwks() {
+        return jwkSet.toPublicJWKSet().toJSONObject();
+    }
+
+    /**
+     * Revokes the token used to call this endpoint (logout).
+     */
+    @DeleteMapping("/token")
+    public ResponseEntity<Void> revoke(@AuthenticationPrincipal Jwt jwt) {
+        if (ReferenceTokenStore.isReferenceToken(jwt.getTokenValue())) {
+            referenceTokenStore.revoke(jwt.getTokenValue());
+        } else if (jwt.getId() != null) {
+            tokenRevocationService.revokeToken(jwt.getId(), jwt.getExpiresAt());
+        } else {
+            throw new CustomException("Token cannot be revoked", HttpStatus.BAD_REQUEST, "Token",
+                    List.of("token has no jti claim"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revokes every token issued so far to the given user. Admins only.
+     */
+    @DeleteMapping("/token/user/{username}")
+    public ResponseEntity<Void> revokeUser(@PathVariable String username, Authentication authentication) {
+        try {
+            personService.getPersonByUsernameAndAdmin(authentication.getName());
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        tokenRevocationService.revokeUser(username);
+        return ResponseEntity.noContent().build();
     }
 
 
+    /**
+     * Issues a signed JWT, or an opaque reference token when the client asks for one with
+     * {@code token_type=reference} or is configured in {@code auth.reference-token.clients}.
+     */
     @PostMapping("/token")
-    public String token(Authentication authentication) {
+    public String token(Authentication authentication, @RequestParam(name = "token_type", required = false) String tokenType) {
         Instant now = Instant.now();
-        long expiry = 300L;
+        long expiry = tokenExpirySeconds;
         // @formatter:off
         String scope = authentication.getAuthorities().stream()
               .map(GrantedAuthority::getAuthority)
               .collect(Collectors.joining(" "));
+        boolean reference = tokenType == null
+                ? referenceTokenClients.contains(authentication.getName())
+                : "reference".equals(tokenType);
+        if (reference) {
+            UUID userId = personService.getUserId(authentication.getName());
+            return referenceTokenStore.issue(authentication.getName(), userId.toString(), scope, now, now.plusSeconds(expiry));
+        }
         JwtClaimsSet claims = JwtClaimsSet.builder()
+              .id(UUID.randomUUID().toString())
               .issuer("self")
               .issuedAt(now)
               .expiresAt(now.plusSeconds(expiry))
@@ -73,7 +211,7 @@ public class AuthController {
                 .claim("userId", personService.getUserId(authentication.getName()))
               .build();
         // @formatter:on
-        return this.encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+        return this.encoder.encode(JwtEncoderParameters.from(JwsHeader.with(signingAlgorithm).build(), claims)).getTokenValue();
     }
 
 }
\ No newline at end of file
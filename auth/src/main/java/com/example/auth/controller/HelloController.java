@@ -17,12 +17,15 @@ package com.example.auth.controller;
 
 import com.example.auth.entities.Person;
 import com.example.auth.services.PersonService;
+import com.example.auth.handlers.exceptions.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -37,6 +40,9 @@ public class HelloController {
     @Autowired
     PersonService personService;
 
+    @Value("${auth.delete.batch.max-size}")
+    int deleteBatchMaxSize;
+
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<Void> delete(@PathVariable UUID id, Authentication authentication) {
         try {
@@ -49,4 +55,17 @@ public class HelloController {
 
     }
 
+    /**
+     * Deletes many users in one call. Only admins get here: SecurityConfig checks the token's
+     * scope claim, so no database lookup is needed to authorize the caller.
+     */
+    @PostMapping("/delete/batch")
+    public ResponseEntity<List<UUID>> deleteBatch(@RequestBody List<UUID> ids) {
+        if (ids.size() > deleteBatchMaxSize) {
+            throw new CustomException("Batch too large", HttpStatus.BAD_REQUEST, "Person",
+                    List.of("at most " + deleteBatchMaxSize + " users can be deleted per request"));
+        }
+        return ResponseEntity.ok(personService.deletePeople(ids));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.example.auth.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntrospectionResultDTO {
+    private boolean active;
+    private String subject;
+    private String userId;
+    private String scope;
+    private Instant expiresAt;
+    private String error;
+
+    public IntrospectionResultDTO(boolean active, String subject, String userId, String scope, Instant expiresAt, String error) {
+        this.active = active;
+        this.subject = subject;
+        this.userId = userId;
+        this.scope = scope;
+        this.expiresAt = expiresAt;
+        this.error = error;
+    }
+
+    public static IntrospectionResultDTO inactive(String error) {
+        return new IntrospectionResultDTO(false, null, null, null, null, error);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.auth.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class PersonSyncBatchDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<PersonSyncDTO> people;
+
+    public PersonSyncBatchDTO(List<PersonSyncDTO> people) {
+        this.people = people;
+    }
+
+    public List<PersonSyncDTO> getPeople() {
+        return people;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.auth.dtos;
+
+import java.util.List;
+import java.util.UUID;
+
+public class RegisterResultDTO {
+    private String username;
+    private UUID id;
+    private int status;
+    private List<String> errors;
+
+    public RegisterResultDTO(String username, UUID id, int status, List<String> errors) {
+        this.username = username;
+        this.id = id;
+        this.status = status;
+        this.errors = errors;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.auth.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Broadcast to every auth replica when a token (by jti) or all tokens of one or more users are
+ * revoked. A single revocation uses {@code value}, a batch of users uses {@code values}.
+ */
+public class RevocationEventDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Type { TOKEN, USER }
+
+    private Type type;
+    private String value;
+    private List<String> values;
+    private long epochSecond;
+
+    public RevocationEventDTO() {
+    }
+
+    public RevocationEventDTO(Type type, String value, long epochSecond) {
+        this.type = type;
+        this.value = value;
+        this.epochSecond = epochSecond;
+    }
+
+    public RevocationEventDTO(Type type, List<String> values, long epochSecond) {
+        this.type = type;
+        this.values = values;
+        this.epochSecond = epochSecond;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Token revocations carry the token's expiry, user revocations the moment of revocation.
+     */
+    public long getEpochSecond() {
+        return epochSecond;
+    }
+
+    public void setEpochSecond(long epochSecond) {
+        this.epochSecond = epochSecond;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.auth.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+public class UserDeletionBatchDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<UUID> ids;
+
+    public UserDeletionBatchDTO(List<UUID> ids) {
+        this.ids = ids;
+    }
+
+    public List<UUID> getIds() {
+        return ids;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.auth.handlers.exceptions.model;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+public class DuplicateResourceException extends CustomException {
+    private static final String MESSAGE = "Resource already exists!";
+    private static final HttpStatus httpStatus = HttpStatus.CONFLICT;
+
+    public DuplicateResourceException(String resource, List<String> errors) {
+        super(MESSAGE, httpStatus, resource, errors);
+    }
+}
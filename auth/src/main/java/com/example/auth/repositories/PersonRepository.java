@@ -1,12 +1,19 @@
 package com.example.auth.repositories;
 
 import com.example.auth.entities.Person;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface PersonRepository extends JpaRepository<Person, UUID> {
     @Query
@@ -15,5 +22,15 @@ public interface PersonRepository extends JpaRepository<Person, UUID> {
     @Query("SELECT p from Person p where p.username = :username and p.admin = true")
     Optional<Person> findPersonByUsernameAndAdmin(@Param("username")String username);
 
+    @Query("SELECT p.username from Person p where p.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    boolean existsByUsername(String username);
+
+    // must run in a transaction so the PostgreSQL driver streams rows by fetch size instead of loading them all
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.username from Person p")
+    Stream<String> streamAllUsernames();
+
 }
 
@@ -0,0 +1,97 @@
+package com.example.auth.services;
+
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes the bearer tokens issued by this service: reference tokens are resolved with a
+ * lookup in the {@link ReferenceTokenStore}, everything else is treated as a signed JWT and
+ * checked against the {@link TokenRevocationService} deny-list.
+ * <p>
+ * JWTs whose signature has been verified are cached until they expire, so a token presented
+ * again (every request behind nginx goes through /auth/validate) skips the signature check.
+ * The revocation check is never cached.
+ */
+public class AuthJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder signedJwtDecoder;
+    private final ReferenceTokenStore referenceTokenStore;
+    private final TokenRevocationService tokenRevocationService;
+    private final Map<String, Jwt> verified = new ConcurrentHashMap<>();
+    private final int cacheSize;
+    private volatile long lastPurge;
+
+    /**
+     * @param cacheSize maximum number of verified JWTs kept, 0 disables the cache
+     */
+    public AuthJwtDecoder(JwtDecoder signedJwtDecoder, ReferenceTokenStore referenceTokenStore,
+                          TokenRevocationService tokenRevocationService, int cacheSize) {
+        this.signedJwtDecoder = signedJwtDecoder;
+        this.referenceTokenStore = referenceTokenStore;
+        this.tokenRevocationService = tokenRevocationService;
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (!ReferenceTokenStore.isReferenceToken(token)) {
+            Jwt jwt = verify(token);
+            if (tokenRevocationService.isRevoked(jwt)) {
+                throw new BadJwtException("Token has been revoked");
+            }
+            return jwt;
+        }
+        ReferenceTokenStore.ReferenceToken referenceToken = referenceTokenStore.lookup(token);
+        if (referenceToken == null) {
+            throw new BadJwtException("Unknown, revoked or expired reference token");
+        }
+        return Jwt.withTokenValue(token)
+                .header("typ", "reference")
+                .subject(referenceToken.subject())
+                .claim("scope", referenceToken.scope())
+                .claim("userId", referenceToken.userId())
+                .issuedAt(referenceToken.issuedAt())
+                .expiresAt(referenceToken.expiresAt())
+                .build();
+    }
+
+    private Jwt verify(String token) {
+        if (cacheSize == 0) {
+            return signedJwtDecoder.decode(token);
+        }
+        Instant now = Instant.now();
+        Jwt cached = verified.get(token);
+        if (cached != null) {
+            if (now.isBefore(cached.getExpiresAt())) {
+                return cached;
+            }
+            verified.remove(token);
+        }
+        Jwt jwt = signedJwtDecoder.decode(token);
+        if (jwt.getExpiresAt() != null) {
+            cache(token, jwt, now);
+        }
+        return jwt;
+    }
+
+    private void cache(String token, Jwt jwt, Instant now) {
+        if (verified.size() >= cacheSize) {
+            // sweep expired entries at most once a second; when still full just skip caching
+            long millis = now.toEpochMilli();
+            if (millis - lastPurge > 1000) {
+                lastPurge = millis;
+                verified.values().removeIf(cachedJwt -> !now.isBefore(cachedJwt.getExpiresAt()));
+            }
+            if (verified.size() >= cacheSize) {
+                return;
+            }
+        }
+        verified.put(token, jwt);
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.auth.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only, memory-mapped spool for user events that could not be handed to RabbitMQ.
+ * <p>
+ * Layout: an 8 byte header holding the read (head) and write (tail) offsets, followed by
+ * length-prefixed records. Records are consumed strictly in order by {@link SpoolDrainer}.
+ * <p>
+ * Guarded by a ReentrantLock rather than synchronized: forcing the mapping to disk under a
+ * monitor would pin the carrier thread when requests run on virtual threads.
+ */
+@Component
+public class EventSpool {
+
+    public enum FsyncPolicy {
+        /** force the mapping to disk after every append */
+        ALWAYS,
+        /** force the mapping to disk once per drainer tick */
+        INTERVAL,
+        /** leave write-back to the operating system */
+        NEVER
+    }
+
+    public record SpooledEvent(String routingKey, String typeId, String messageId, byte[] body) {
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventSpool.class);
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private final int maxBytes;
+    private final FsyncPolicy fsyncPolicy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int head;
+    private int tail;
+    private boolean dirty;
+
+    public EventSpool(@Value("${spool.path}") String path,
+                      @Value("${spool.max-bytes}") int maxBytes,
+                      @Value("${spool.fsync}") FsyncPolicy fsyncPolicy) {
+        this.path = Path.of(path);
+        this.maxBytes = maxBytes;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        lock.lock();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int size = (int) Math.max(maxBytes, channel.size());
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            head = buffer.getInt(0);
+            tail = buffer.getInt(4);
+            if (head < HEADER_BYTES || tail < head || tail > size) {
+                head = HEADER_BYTES;
+                tail = HEADER_BYTES;
+                writeHeader();
+            }
+            if (!isEmpty()) {
+                LOGGER.warn("Event spool {} holds {} bytes of undelivered events", path, tail - head);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return head == tail;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends an event at the tail of the spool.
+     *
+     * @return false if the event does not fit under the configured size cap and was dropped
+     */
+    public boolean append(String routingKey, String typeId, String messageId, byte[] body) {
+        lock.lock();
+        try {
+            byte[] record = encode(routingKey, typeId, messageId, body);
+            int needed = Integer.BYTES + record.length;
+
+            if (tail + needed > buffer.capacity()) {
+                compact();
+            }
+            if (tail + needed > buffer.capacity()) {
+                LOGGER.error("Event spool {} is full, dropping {} event", path, routingKey);
+                return false;
+            }
+
+            buffer.putInt(tail, record.length);
+            buffer.put(tail + Integer.BYTES, record);
+            tail += needed;
+            writeHeader();
+
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                buffer.force();
+            } else {
+                dirty = true;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the oldest event without removing it, or null if the spool is empty.
+     */
+    public SpooledEvent peek() {
+        lock.lock();
+        try {
+            if (isEmpty()) {
+                return null;
+            }
+            int length = buffer.getInt(head);
+            byte[] record = new byte[length];
+            buffer.get(head + Integer.BYTES, record);
+            return decode(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest event once the event returned by {@link #peek()} has been delivered.
+     */
+    public void removeFirst() {
+        lock.lock();
+        try {
+            if (isEmpty()) {
+                return;
+            }
+            head += Integer.BYTES + buffer.getInt(head);
+            if (head == tail) {
+                head = HEADER_BYTES;
+                tail = HEADER_BYTES;
+            }
+            writeHeader();
+            dirty = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the {@link FsyncPolicy#INTERVAL} policy; called periodically by the drainer.
+     */
+    public void sync() {
+        lock.lock();
+        try {
+            if (fsyncPolicy == FsyncPolicy.INTERVAL && dirty) {
+                buffer.force();
+                dirty = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void compact() {
+        int length = tail - head;
+        if (head == HEADER_BYTES) {
+            return;
+        }
+        byte[] pending = new byte[length];
+        buffer.get(head, pending);
+        buffer.put(HEADER_BYTES, pending);
+        head = HEADER_BYTES;
+        tail = HEADER_BYTES + length;
+        writeHeader();
+    }
+
+    private void writeHeader() {
+        buffer.putInt(0, head);
+        buffer.putInt(4, tail);
+    }
+
+    private static byte[] encode(String routingKey, String typeId, String messageId, byte[] body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(routingKey);
+            out.writeUTF(typeId == null ? "" : typeId);
+            out.writeUTF(messageId == null ? "" : messageId);
+            out.writeInt(body.length);
+            out.write(body);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SpooledEvent decode(byte[] record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            String routingKey = in.readUTF();
+            String typeId = in.readUTF();
+            String messageId = in.readUTF();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new SpooledEvent(routingKey,
+                    typeId.isEmpty() ? null : typeId,
+                    messageId.isEmpty() ? null : messageId,
+                    body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
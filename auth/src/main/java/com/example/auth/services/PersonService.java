@@ -2,45 +2,78 @@ package com.example.auth.services;
 
 import com.example.auth.dtos.RegisterDTO;
 import com.example.auth.dtos.PersonSyncDTO;
+import com.example.auth.dtos.RegisterResultDTO;
 import com.example.auth.entities.Person;
+import com.example.auth.handlers.exceptions.model.DuplicateResourceException;
 import com.example.auth.handlers.exceptions.model.ResourceNotFoundException;
 import com.example.auth.repositories.PersonRepository;
 import jakarta.transaction.Transactional;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class PersonService {
     private static final Logger LOGGER = LoggerFactory.getLogger(PersonService.class);
+    private static final String INSERT_PERSON =
+            "INSERT INTO person (id, username, password, admin) VALUES (?, ?, ?, false) ON CONFLICT (username) DO NOTHING";
+    private static final String DELETE_PEOPLE = "DELETE FROM person WHERE id = ANY(?) RETURNING id, username";
     private final PersonRepository personRepository;
     private final PasswordEncoder passwordEncoder;
     private final RestTemplate restTemplate;
     private final ProducerService producerService;
+    private final BatchPasswordHasher batchPasswordHasher;
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final TokenRevocationService tokenRevocationService;
+    private final UsernameAvailabilityService usernameAvailabilityService;
     @Value("${user.service}")
     private String userServiceURL;
+    @Value("${register.batch.jdbc-batch-size}")
+    private int jdbcBatchSize;
 
     @Autowired
-    public PersonService(PersonRepository personRepository, PasswordEncoder passwordEncoder, RestTemplate restTemplate, ProducerService producerService) {
+    public PersonService(PersonRepository personRepository, PasswordEncoder passwordEncoder, RestTemplate restTemplate, ProducerService producerService,
+                         BatchPasswordHasher batchPasswordHasher, JdbcTemplate jdbcTemplate, Validator validator,
+                         TokenRevocationService tokenRevocationService, UsernameAvailabilityService usernameAvailabilityService) {
         this.personRepository = personRepository;
         this.passwordEncoder = passwordEncoder;
         this.restTemplate = restTemplate;
         this.producerService = producerService;
+        this.batchPasswordHasher = batchPasswordHasher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.tokenRevocationService = tokenRevocationService;
+        this.usernameAvailabilityService = usernameAvailabilityService;
     }
     @Transactional
     public UUID insert(RegisterDTO user) {
         UUID newUserId = UUID.randomUUID();
+
+        // 0. Reject taken usernames before spending time on BCrypt
+        if (!usernameAvailabilityService.isAvailable(user.getUsername())) {
+            throw new DuplicateResourceException(Person.class.getSimpleName(), List.of("username: already taken"));
+        }
         
         // 1. Save to Local DB
         Person person = personRepository.save(
                 new Person(newUserId, user.getUsername(), passwordEncoder.encode(user.getPassword()), false));
+        usernameAvailabilityService.added(person.getUsername());
         LOGGER.debug("Person with id {} was inserted in db", person.getId());
 
         // 2. Create Sync DTO
@@ -52,6 +85,89 @@ public class PersonService {
         return person.getId();
     }
 
+    /**
+     * Registers many users at once: entries are validated individually, passwords are hashed in
+     * parallel, rows go to the DB as one JDBC batch and a single user.created.batch event is published.
+     * Failures are reported per entry instead of failing the whole batch.
+     */
+    public List<RegisterResultDTO> insertBatch(List<RegisterDTO> users) {
+        RegisterResultDTO[] results = new RegisterResultDTO[users.size()];
+        List<Integer> accepted = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        // 1. Validate every entry and reject duplicates inside the batch
+        for (int i = 0; i < users.size(); i++) {
+            RegisterDTO user = users.get(i);
+            List<String> errors = user == null ? List.of("entry is required") : validator.validate(user).stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .distinct()
+                    .toList();
+            if (!errors.isEmpty()) {
+                results[i] = new RegisterResultDTO(user == null ? null : user.getUsername(), null, HttpStatus.BAD_REQUEST.value(), errors);
+            } else if (!seen.add(user.getUsername())) {
+                results[i] = conflict(user.getUsername());
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        // 2. Drop usernames that are already taken before spending time on BCrypt; only possible
+        //    hits of the username filter need the database
+        Set<String> candidates = seen.stream()
+                .filter(usernameAvailabilityService::mightBeTaken)
+                .collect(Collectors.toSet());
+        Set<String> taken = candidates.isEmpty() ? Set.of() : new HashSet<>(personRepository.findExistingUsernames(candidates));
+        accepted.removeIf(i -> {
+            if (taken.contains(users.get(i).getUsername())) {
+                results[i] = conflict(users.get(i).getUsername());
+                return true;
+            }
+            return false;
+        });
+
+        // 3. Hash in parallel on the bounded pool
+        List<String> hashes = batchPasswordHasher.encodeAll(accepted.stream().map(i -> users.get(i).getPassword()).toList());
+        List<Person> people = new ArrayList<>(accepted.size());
+        for (int j = 0; j < accepted.size(); j++) {
+            people.add(new Person(UUID.randomUUID(), users.get(accepted.get(j)).getUsername(), hashes.get(j), false));
+        }
+
+        // 4. Insert with JDBC batching; a username claimed concurrently shows up as a 0 update count
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_PERSON, people, jdbcBatchSize, (ps, person) -> {
+            ps.setObject(1, person.getId());
+            ps.setString(2, person.getUsername());
+            ps.setString(3, person.getPassword());
+        });
+
+        List<PersonSyncDTO> created = new ArrayList<>();
+        int j = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                int i = accepted.get(j);
+                RegisterDTO user = users.get(i);
+                Person person = people.get(j++);
+                if (count == 0) {
+                    results[i] = conflict(user.getUsername());
+                } else {
+                    results[i] = new RegisterResultDTO(user.getUsername(), person.getId(), HttpStatus.CREATED.value(), List.of());
+                    usernameAvailabilityService.added(person.getUsername());
+                    created.add(new PersonSyncDTO(person.getId(), user.getName(), user.getAddress(), user.getAge()));
+                }
+            }
+        }
+        LOGGER.debug("{} of {} people were inserted in db", created.size(), users.size());
+
+        // 5. Publish one batched event for the consumers to apply in bulk
+        if (!created.isEmpty()) {
+            producerService.createUsers(created);
+        }
+        return List.of(results);
+    }
+
+    private static RegisterResultDTO conflict(String username) {
+        return new RegisterResultDTO(username, null, HttpStatus.CONFLICT.value(), List.of("username: already taken"));
+    }
+
     public UUID getUserId(String username) {
         Optional<Person> person = personRepository.findByUsername(username);
         return person.get().getId();
@@ -71,10 +187,43 @@ public class PersonService {
     @Transactional
     public void deletePerson(UUID uuid) {
         // 1. Delete from Local DB
-        personRepository.delete(personRepository.findById(uuid).get());
+        Person person = personRepository.findById(uuid).get();
+        personRepository.delete(person);
+        usernameAvailabilityService.removed(1);
         LOGGER.debug("Person with id {} deleted successfully!", uuid);
+
+        // tokens already handed out to the deleted user stop validating right away
+        tokenRevocationService.revokeUser(person.getUsername());
         
         // 2. Publish Event (Fire and Forget)
         producerService.deleteUser(uuid);
     }
+
+    /**
+     * Deletes many users with a single statement, revokes their tokens and publishes one
+     * user.deleted.batch event. Ids that do not exist are ignored.
+     *
+     * @return the ids that were actually deleted
+     */
+    @Transactional
+    public List<UUID> deletePeople(List<UUID> ids) {
+        List<UUID> deletedIds = new ArrayList<>(ids.size());
+        List<String> usernames = new ArrayList<>(ids.size());
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(DELETE_PEOPLE);
+            statement.setArray(1, con.createArrayOf("uuid", ids.toArray()));
+            return statement;
+        }, rs -> {
+            deletedIds.add(rs.getObject("id", UUID.class));
+            usernames.add(rs.getString("username"));
+        });
+        LOGGER.debug("{} of {} people deleted from db", deletedIds.size(), ids.size());
+
+        if (!deletedIds.isEmpty()) {
+            usernameAvailabilityService.removed(deletedIds.size());
+            tokenRevocationService.revokeUsers(usernames);
+            producerService.deleteUsers(deletedIds);
+        }
+        return deletedIds;
+    }
 }
@@ -1,46 +1,152 @@
 package com.example.auth.services;
 
 import com.example.auth.config.RabbitMQConfig;
+import com.example.auth.dtos.PersonSyncBatchDTO;
 import com.example.auth.dtos.PersonSyncDTO;
+import com.example.auth.dtos.UserDeletionBatchDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ProducerService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProducerService.class);
     private final RabbitTemplate rabbitTemplate;
+    private final EventSpool eventSpool;
+    private final MeterRegistry meterRegistry;
+    private final long confirmTimeoutMs;
 
-    public ProducerService(RabbitTemplate rabbitTemplate) {
+    public ProducerService(RabbitTemplate rabbitTemplate, EventSpool eventSpool, MeterRegistry meterRegistry,
+                           @Value("${spool.confirm-timeout-ms}") long confirmTimeoutMs) {
         this.rabbitTemplate = rabbitTemplate;
+        this.eventSpool = eventSpool;
+        this.meterRegistry = meterRegistry;
+        this.confirmTimeoutMs = confirmTimeoutMs;
     }
 
     public void createUser(PersonSyncDTO personSyncDTO) {
-        try {
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.USER_EXCHANGE,
-                    "user.created",
-                    personSyncDTO
-            );
-            LOGGER.info("[x] Sent user creation event for ID: {}", personSyncDTO.getId());
-        } catch (Exception e) {
-            LOGGER.error("Failed to send user creation event", e);
-        }
+        afterCommit(() -> {
+            if (publish("user.created", personSyncDTO)) {
+                LOGGER.info("[x] Sent user creation event for ID: {}", personSyncDTO.getId());
+            }
+        });
+    }
+
+    public void createUsers(List<PersonSyncDTO> people) {
+        afterCommit(() -> {
+            if (publish("user.created.batch", new PersonSyncBatchDTO(people))) {
+                LOGGER.info("[x] Sent user creation batch event for {} users", people.size());
+            }
+        });
     }
 
     public void deleteUser(UUID id) {
+        afterCommit(() -> {
+            if (publish("user.deleted", id)) {
+                LOGGER.info("[x] Sent user deletion event for ID: {}", id);
+            }
+        });
+    }
+
+    public void deleteUsers(List<UUID> ids) {
+        afterCommit(() -> {
+            if (publish("user.deleted.batch", new UserDeletionBatchDTO(ids))) {
+                LOGGER.info("[x] Sent user deletion batch event for {} users", ids.size());
+            }
+        });
+    }
+
+    /**
+     * Hands the event to RabbitMQ, falling back to the local spool when the broker is unavailable
+     * or nacks the publish. While the spool holds undelivered events new ones are appended behind
+     * them, so consumers still see them in order and registration never waits on a dead broker.
+     * <p>
+     * The confirm is handled asynchronously: a nack, or no confirm within spool.confirm-timeout-ms,
+     * spools the event from the callback, and from then on later events queue behind it. Events
+     * published while that confirm was still outstanding are not held back and can reach consumers
+     * ahead of it. An event spooled on timeout that the broker did accept is delivered twice;
+     * consumers skip the copy by message id.
+     *
+     * @return true if the event was handed to the broker
+     */
+    private boolean publish(String routingKey, Object payload) {
+        Message message = rabbitTemplate.getMessageConverter().toMessage(payload, new MessageProperties());
+        if (!eventSpool.isEmpty()) {
+            spool(routingKey, message);
+            return false;
+        }
+        // auth.rabbitmq.publish: time to hand the message to the client; auth.rabbitmq.confirm: until the broker confirms it
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CorrelationData correlationData = new CorrelationData();
         try {
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.USER_EXCHANGE,
-                    "user.deleted",
-                    id
-            );
-            LOGGER.info("[x] Sent user deletion event for ID: {}", id);
+            long start = System.nanoTime();
+            rabbitTemplate.send(RabbitMQConfig.USER_EXCHANGE, routingKey, message, correlationData);
+            timer("auth.rabbitmq.publish", routingKey, "sent").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         } catch (Exception e) {
-            LOGGER.error("Failed to send user deletion event", e);
+            LOGGER.error("Failed to send {} event, spooling it", routingKey, e);
+            sample.stop(timer("auth.rabbitmq.publish", routingKey, "error"));
+            spool(routingKey, message);
+            return false;
+        }
+
+        // attached only once the send succeeded, so a failed send is never spooled twice
+        correlationData.getFuture()
+                .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((confirm, ex) -> {
+                    String outcome = ex instanceof TimeoutException ? "timeout"
+                            : ex == null && confirm.isAck() ? "ack" : "nack";
+                    sample.stop(timer("auth.rabbitmq.confirm", routingKey, outcome));
+                    if (!"ack".equals(outcome)) {
+                        LOGGER.warn("Publish of {} event was not confirmed ({}), spooling it", routingKey, outcome);
+                        spool(routingKey, message);
+                    }
+                });
+        return true;
+    }
+
+    private Timer timer(String name, String routingKey, String outcome) {
+        return Timer.builder(name)
+                .tag("routing_key", routingKey)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the publish once the surrounding transaction has committed, so the broker never sees an
+     * event for a write that was rolled back and the transaction is not held open by the publish.
+     */
+    private static void afterCommit(Runnable publish) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    private void spool(String routingKey, Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        Object typeId = properties.getHeaders().get(SpoolDrainer.TYPE_ID_HEADER);
+        if (eventSpool.append(routingKey, typeId == null ? null : typeId.toString(), properties.getMessageId(), message.getBody())) {
+            LOGGER.info("[x] Spooled {} event until the broker recovers", routingKey);
         }
     }
-}
\ No newline at end of file
+}
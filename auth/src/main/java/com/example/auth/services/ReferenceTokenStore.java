@@ -0,0 +1,106 @@
+package com.example.auth.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory store for opaque reference tokens. Validation is a single hash lookup and
+ * revocation takes effect immediately. The store is bounded: once it is full the oldest
+ * tokens (which, with a fixed lifetime, are also the closest to expiry) are evicted.
+ */
+@Component
+public class ReferenceTokenStore {
+
+    public static final String PREFIX = "rt_";
+
+    public record ReferenceToken(String subject, String userId, String scope, Instant issuedAt, Instant expiresAt) {
+        public boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceTokenStore.class);
+
+    private final Map<String, ReferenceToken> tokens = new ConcurrentHashMap<>();
+    private final Queue<String> issueOrder = new ConcurrentLinkedQueue<>();
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final int maxTokens;
+
+    public ReferenceTokenStore(@Value("${auth.reference-token.max-tokens}") int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public static boolean isReferenceToken(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    public String issue(String subject, String userId, String scope, Instant issuedAt, Instant expiresAt) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = PREFIX + encoder.encodeToString(bytes);
+
+        while (tokens.size() >= maxTokens) {
+            String oldest = issueOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            tokens.remove(oldest);
+        }
+        tokens.put(token, new ReferenceToken(subject, userId, scope, issuedAt, expiresAt));
+        issueOrder.add(token);
+        return token;
+    }
+
+    /**
+     * @return the token's claims, or null if it is unknown, revoked or expired
+     */
+    public ReferenceToken lookup(String token) {
+        ReferenceToken referenceToken = tokens.get(token);
+        if (referenceToken == null) {
+            return null;
+        }
+        if (referenceToken.isExpired(Instant.now())) {
+            tokens.remove(token);
+            return null;
+        }
+        return referenceToken;
+    }
+
+    public boolean revoke(String token) {
+        return tokens.remove(token) != null;
+    }
+
+    public int revokeSubject(String subject) {
+        return revokeSubjects(Set.of(subject));
+    }
+
+    /**
+     * Revokes the tokens of all given subjects in a single pass over the store.
+     */
+    public int revokeSubjects(Set<String> subjects) {
+        int before = tokens.size();
+        tokens.values().removeIf(token -> subjects.contains(token.subject()));
+        return before - tokens.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.reference-token.purge-interval-ms}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        tokens.values().removeIf(token -> token.isExpired(now));
+        issueOrder.removeIf(token -> !tokens.containsKey(token));
+        LOGGER.debug("{} reference tokens active after purge", tokens.size());
+    }
+}
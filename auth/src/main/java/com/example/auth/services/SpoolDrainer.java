@@ -0,0 +1,80 @@
+package com.example.auth.services;
+
+import com.example.auth.config.RabbitMQConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays spooled user events, oldest first, once the broker accepts publishes again.
+ * An event is only removed from the spool after RabbitMQ has confirmed it.
+ */
+@Component
+public class SpoolDrainer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpoolDrainer.class);
+    static final String TYPE_ID_HEADER = "__TypeId__";
+
+    private final EventSpool eventSpool;
+    private final RabbitTemplate rabbitTemplate;
+    @Value("${spool.confirm-timeout-ms}")
+    private long confirmTimeoutMs;
+
+    public SpoolDrainer(EventSpool eventSpool, RabbitTemplate rabbitTemplate) {
+        this.eventSpool = eventSpool;
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${spool.drain-interval-ms}")
+    public void drain() {
+        try {
+            EventSpool.SpooledEvent event;
+            while ((event = eventSpool.peek()) != null) {
+                if (!sendConfirmed(event)) {
+                    return;
+                }
+                eventSpool.removeFirst();
+                LOGGER.info("[x] Replayed spooled {} event", event.routingKey());
+            }
+        } finally {
+            eventSpool.sync();
+        }
+    }
+
+    private boolean sendConfirmed(EventSpool.SpooledEvent event) {
+        CorrelationData correlationData = new CorrelationData();
+        try {
+            rabbitTemplate.send(RabbitMQConfig.USER_EXCHANGE, event.routingKey(), toMessage(event), correlationData);
+            CorrelationData.Confirm confirm = correlationData.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck()) {
+                LOGGER.warn("Broker rejected spooled {} event: {}", event.routingKey(), confirm.getReason());
+            }
+            return confirm.isAck();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            LOGGER.debug("Broker still unavailable, keeping {} event spooled", event.routingKey(), e);
+            return false;
+        }
+    }
+
+    private static Message toMessage(EventSpool.SpooledEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setMessageId(event.messageId());
+        if (event.typeId() != null) {
+            properties.setHeader(TYPE_ID_HEADER, event.typeId());
+        }
+        return new Message(event.body(), properties);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.auth.services;
+
+import com.example.auth.config.RabbitMQConfig;
+import com.example.auth.dtos.RevocationEventDTO;
+import com.example.auth.utils.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deny-list for tokens revoked before their expiry. Single tokens are revoked by jti, users by
+ * subject (every token issued up to the moment of revocation). A Bloom filter sits in front of
+ * the exact maps so a token that was never revoked is accepted after a few bit probes; only filter
+ * hits consult the maps. Entries age out once every token they could match has expired, and the
+ * filter is rebuilt from the remaining entries at the same time.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final String TOKEN_KEY = "t:";
+    private static final String USER_KEY = "u:";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ReferenceTokenStore referenceTokenStore;
+    private final long tokenExpirySeconds;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    // jti -> token expiry
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    // subject -> moment of revocation
+    private final Map<String, Instant> revokedUsers = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    public TokenRevocationService(RabbitTemplate rabbitTemplate, ReferenceTokenStore referenceTokenStore,
+                                  @Value("${auth.token.expiry-seconds}") long tokenExpirySeconds,
+                                  @Value("${auth.revocation.expected-entries}") int expectedEntries,
+                                  @Value("${auth.revocation.false-positive-rate}") double falsePositiveRate) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.referenceTokenStore = referenceTokenStore;
+        this.tokenExpirySeconds = tokenExpirySeconds;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    public boolean isRevoked(Jwt jwt) {
+        BloomFilter current = filter;
+        String jti = jwt.getId();
+        if (jti != null && current.mightContain(TOKEN_KEY + jti) && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        String subject = jwt.getSubject();
+        if (subject != null && current.mightContain(USER_KEY + subject)) {
+            Instant revokedAt = revokedUsers.get(subject);
+            Instant issuedAt = jwt.getIssuedAt();
+            return revokedAt != null && (issuedAt == null || !issuedAt.isAfter(revokedAt));
+        }
+        return false;
+    }
+
+    public void revokeToken(String jti, Instant expiresAt) {
+        RevocationEventDTO event = new RevocationEventDTO(RevocationEventDTO.Type.TOKEN, jti, expiresAt.getEpochSecond());
+        apply(event);
+        broadcast(event);
+    }
+
+    public void revokeUser(String subject) {
+        RevocationEventDTO event = new RevocationEventDTO(RevocationEventDTO.Type.USER, subject, Instant.now().getEpochSecond());
+        apply(event);
+        broadcast(event);
+    }
+
+    public void revokeUsers(List<String> subjects) {
+        if (subjects.isEmpty()) {
+            return;
+        }
+        RevocationEventDTO event = new RevocationEventDTO(RevocationEventDTO.Type.USER, subjects, Instant.now().getEpochSecond());
+        apply(event);
+        broadcast(event);
+    }
+
+    /**
+     * Receives revocations from every replica, including this one (applying twice is harmless).
+     * Each replica listens on its own anonymous queue bound to the fanout exchange.
+     */
+    @RabbitListener(bindings = @QueueBinding(
+            value = @Queue,
+            exchange = @Exchange(value = RabbitMQConfig.REVOCATION_EXCHANGE, type = ExchangeTypes.FANOUT)))
+    public void receive(RevocationEventDTO event) {
+        apply(event);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.purge-interval-ms}")
+    public synchronized void purgeExpired() {
+        Instant now = Instant.now();
+        int before = revokedTokens.size() + revokedUsers.size();
+        revokedTokens.values().removeIf(expiresAt -> !now.isBefore(expiresAt));
+        revokedUsers.values().removeIf(revokedAt -> !now.isBefore(revokedAt.plusSeconds(tokenExpirySeconds)));
+        int after = revokedTokens.size() + revokedUsers.size();
+        if (after == before && after <= expectedEntries) {
+            return;
+        }
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, after * 2), falsePositiveRate);
+        revokedTokens.keySet().forEach(jti -> rebuilt.put(TOKEN_KEY + jti));
+        revokedUsers.keySet().forEach(subject -> rebuilt.put(USER_KEY + subject));
+        filter = rebuilt;
+        LOGGER.debug("Revocation filter rebuilt with {} entries ({} bytes)", after, rebuilt.sizeInBytes());
+    }
+
+    // synchronized with the rebuild so an entry added mid-rebuild cannot miss the new filter
+    private synchronized void apply(RevocationEventDTO event) {
+        Instant instant = Instant.ofEpochSecond(event.getEpochSecond());
+        if (event.getType() == RevocationEventDTO.Type.TOKEN) {
+            revokedTokens.put(event.getValue(), instant);
+            filter.put(TOKEN_KEY + event.getValue());
+        } else {
+            List<String> subjects = event.getValues() != null ? event.getValues() : List.of(event.getValue());
+            for (String subject : subjects) {
+                revokedUsers.merge(subject, instant, (a, b) -> a.isAfter(b) ? a : b);
+                filter.put(USER_KEY + subject);
+            }
+            referenceTokenStore.revokeSubjects(new HashSet<>(subjects));
+        }
+    }
+
+    private void broadcast(RevocationEventDTO event) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.REVOCATION_EXCHANGE, "", event);
+        } catch (Exception e) {
+            // the local replica already enforces it; peers miss it until the broker is back
+            LOGGER.error("Failed to broadcast {} revocation for {}", event.getType(),
+                    event.getValues() != null ? event.getValues().size() + " users" : event.getValue(), e);
+        }
+    }
+}
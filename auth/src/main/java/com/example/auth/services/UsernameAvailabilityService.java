@@ -0,0 +1,106 @@
+package com.example.auth.services;
+
+import com.example.auth.repositories.PersonRepository;
+import com.example.auth.utils.BloomFilter;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this username taken?" from a Bloom filter of existing usernames, querying the
+ * (unique, indexed) username column only when the filter reports a possible hit. A name the
+ * filter has never seen is free without touching the database.
+ * <p>
+ * The filter is built from a streaming scan once the application is ready and kept current on
+ * insert. Deleted names cannot be removed from a Bloom filter; they only cause extra database
+ * checks, and the filter is rebuilt once enough of them have piled up. The unique constraint on
+ * Person.username stays the source of truth.
+ */
+@Service
+public class UsernameAvailabilityService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsernameAvailabilityService.class);
+
+    private final PersonRepository personRepository;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final double rebuildStaleRatio;
+
+    // null until the first build has finished; every check goes to the database meanwhile
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    public UsernameAvailabilityService(PersonRepository personRepository,
+                                       @Value("${auth.username-filter.expected-entries}") int expectedEntries,
+                                       @Value("${auth.username-filter.false-positive-rate}") double falsePositiveRate,
+                                       @Value("${auth.username-filter.rebuild-stale-ratio}") double rebuildStaleRatio) {
+        this.personRepository = personRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildStaleRatio = rebuildStaleRatio;
+    }
+
+    public boolean isAvailable(String username) {
+        return !mightBeTaken(username) || !personRepository.existsByUsername(username);
+    }
+
+    /**
+     * @return false only if the username is certainly not taken
+     */
+    public boolean mightBeTaken(String username) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(username);
+    }
+
+    public void added(String username) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(username);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(username);
+        }
+        entries.incrementAndGet();
+    }
+
+    public void removed(int count) {
+        staleEntries.addAndGet(count);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public synchronized void rebuild() {
+        long count = personRepository.count();
+        BloomFilter next = new BloomFilter((int) Math.max(expectedEntries, count * 2), falsePositiveRate);
+        building = next;
+        long scanned;
+        try (Stream<String> usernames = personRepository.streamAllUsernames()) {
+            scanned = usernames.peek(next::put).count();
+        } finally {
+            building = null;
+        }
+        filter = next;
+        entries.set(scanned);
+        staleEntries.set(0);
+        LOGGER.info("Username filter built from {} usernames ({} bytes)", scanned, next.sizeInBytes());
+    }
+
+    @Scheduled(fixedDelayString = "${auth.username-filter.check-interval-ms}")
+    @Transactional
+    public void rebuildIfStale() {
+        long stale = staleEntries.get();
+        if (filter != null && stale > 0 && stale >= entries.get() * rebuildStaleRatio) {
+            rebuild();
+        }
+    }
+}
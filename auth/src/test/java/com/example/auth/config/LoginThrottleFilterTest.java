@@ -0,0 +1,108 @@
+package com.example.auth.config;
+
+import com.example.auth.utils.StripedTokenBucketLimiter;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleFilterTest {
+
+    private static final double NO_REFILL = 1e-6;
+
+    @Test
+    void throttlesLoginsPerClientIp() throws ServletException, IOException {
+        LoginThrottleFilter filter = filter(2, 100);
+
+        assertThat(passes(filter, login("10.0.0.1", "alice"))).isTrue();
+        assertThat(passes(filter, login("10.0.0.1", "bob"))).isTrue();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(login("10.0.0.1", "carol"), response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER))).isPositive();
+
+        assertThat(passes(filter, login("10.0.0.2", "carol"))).isTrue();
+    }
+
+    @Test
+    void throttlesLoginsPerUsernameAcrossIps() throws ServletException, IOException {
+        LoginThrottleFilter filter = filter(100, 1);
+
+        assertThat(passes(filter, login("10.0.0.1", "alice"))).isTrue();
+        assertThat(passes(filter, login("10.0.0.2", "alice"))).isFalse();
+        assertThat(passes(filter, login("10.0.0.2", "bob"))).isTrue();
+    }
+
+    @Test
+    void fallsBackToTheRemoteAddressWithoutXRealIp() throws ServletException, IOException {
+        LoginThrottleFilter filter = filter(1, 100);
+        MockHttpServletRequest first = login(null, "alice");
+        first.setRemoteAddr("192.168.1.10");
+        MockHttpServletRequest second = login(null, "bob");
+        second.setRemoteAddr("192.168.1.10");
+
+        assertThat(passes(filter, first)).isTrue();
+        assertThat(passes(filter, second)).isFalse();
+    }
+
+    @Test
+    void malformedCredentialsAreLeftToBasicAuthentication() throws ServletException, IOException {
+        LoginThrottleFilter filter = filter(100, 1);
+        MockHttpServletRequest request = login("10.0.0.1", null);
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Basic not-base64!");
+
+        assertThat(passes(filter, request)).isTrue();
+        assertThat(passes(filter, login("10.0.0.1", "alice"))).isTrue();
+    }
+
+    @Test
+    void otherRequestsAreNotThrottled() throws ServletException, IOException {
+        LoginThrottleFilter filter = filter(1, 1);
+        MockHttpServletRequest validate = new MockHttpServletRequest("GET", "/auth/validate");
+        validate.setServletPath("/auth/validate");
+        validate.addHeader("X-Real-IP", "10.0.0.1");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(passes(filter, validate)).isTrue();
+        }
+        assertThat(passes(filter, login("10.0.0.1", "alice"))).isTrue();
+    }
+
+    private static LoginThrottleFilter filter(double ipCapacity, double usernameCapacity) {
+        return new LoginThrottleFilter(
+                new StripedTokenBucketLimiter(ipCapacity, NO_REFILL, 1000),
+                new StripedTokenBucketLimiter(usernameCapacity, NO_REFILL, 1000));
+    }
+
+    private static MockHttpServletRequest login(String ip, String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/token");
+        request.setServletPath("/auth/token");
+        if (ip != null) {
+            request.addHeader("X-Real-IP", ip);
+        }
+        if (username != null) {
+            String credentials = Base64.getEncoder().encodeToString((username + ":secret").getBytes(StandardCharsets.UTF_8));
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Basic " + credentials);
+        }
+        return request;
+    }
+
+    private static boolean passes(LoginThrottleFilter filter, MockHttpServletRequest request) throws ServletException, IOException {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest() != null;
+    }
+}
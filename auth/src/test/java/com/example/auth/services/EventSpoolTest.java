@@ -0,0 +1,136 @@
+package com.example.auth.services;
+
+import com.example.auth.services.EventSpool.FsyncPolicy;
+import com.example.auth.services.EventSpool.SpooledEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSpoolTest {
+
+    private static final int MAX_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final List<EventSpool> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (EventSpool spool : opened) {
+            spool.close();
+        }
+    }
+
+    @Test
+    void eventsComeBackInOrderWithTheirHeaders() throws IOException {
+        EventSpool spool = open(MAX_BYTES);
+
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(spool.peek()).isNull();
+        assertThat(spool.append("user.created", "PersonDTO", "m1", body("first"))).isTrue();
+        assertThat(spool.append("user.deleted", null, null, body("second"))).isTrue();
+
+        SpooledEvent first = spool.peek();
+        assertThat(first.routingKey()).isEqualTo("user.created");
+        assertThat(first.typeId()).isEqualTo("PersonDTO");
+        assertThat(first.messageId()).isEqualTo("m1");
+        assertThat(first.body()).isEqualTo(body("first"));
+        // peek does not consume
+        assertThat(spool.peek().messageId()).isEqualTo("m1");
+
+        spool.removeFirst();
+        SpooledEvent second = spool.peek();
+        assertThat(second.routingKey()).isEqualTo("user.deleted");
+        assertThat(second.typeId()).isNull();
+        assertThat(second.messageId()).isNull();
+        assertThat(second.body()).isEqualTo(body("second"));
+
+        spool.removeFirst();
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(spool.peek()).isNull();
+    }
+
+    @Test
+    void undeliveredEventsSurviveAReopen() throws IOException {
+        EventSpool spool = open(MAX_BYTES);
+        spool.append("user.created", "PersonDTO", "m1", body("first"));
+        spool.append("user.created", "PersonDTO", "m2", body("second"));
+        spool.append("user.created", "PersonDTO", "m3", body("third"));
+        spool.removeFirst();
+        spool.close();
+        opened.remove(spool);
+
+        EventSpool reopened = open(MAX_BYTES);
+
+        assertThat(reopened.peek().messageId()).isEqualTo("m2");
+        reopened.removeFirst();
+        assertThat(reopened.peek().messageId()).isEqualTo("m3");
+        reopened.removeFirst();
+        assertThat(reopened.isEmpty()).isTrue();
+    }
+
+    @Test
+    void invalidHeaderStartsAnEmptySpool() throws IOException {
+        try (FileChannel channel = FileChannel.open(spoolPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(100).putInt(50).flip();
+            channel.write(header);
+        }
+
+        EventSpool spool = open(MAX_BYTES);
+
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(spool.append("user.created", "PersonDTO", "m1", body("first"))).isTrue();
+        assertThat(spool.peek().messageId()).isEqualTo("m1");
+    }
+
+    @Test
+    void consumedSpaceIsReclaimedBeforeDropping() throws IOException {
+        EventSpool spool = open(256);
+        int appended = 0;
+        while (spool.append("user.created", "PersonDTO", "m" + appended, body("payload"))) {
+            appended++;
+        }
+        assertThat(appended).isGreaterThan(1);
+
+        spool.removeFirst();
+
+        // the freed record is compacted away, after that the spool is full again
+        assertThat(spool.append("user.created", "PersonDTO", "late", body("payload"))).isTrue();
+        assertThat(spool.append("user.created", "PersonDTO", "dropped", body("payload"))).isFalse();
+        assertThat(spool.peek().messageId()).isEqualTo("m1");
+
+        List<String> drained = new ArrayList<>();
+        while (!spool.isEmpty()) {
+            drained.add(spool.peek().messageId());
+            spool.removeFirst();
+        }
+        assertThat(drained).hasSize(appended).endsWith("late");
+    }
+
+    private EventSpool open(int maxBytes) throws IOException {
+        EventSpool spool = new EventSpool(spoolPath().toString(), maxBytes, FsyncPolicy.NEVER);
+        spool.open();
+        opened.add(spool);
+        return spool;
+    }
+
+    private Path spoolPath() {
+        return directory.resolve("user-events.spool");
+    }
+
+    private static byte[] body(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
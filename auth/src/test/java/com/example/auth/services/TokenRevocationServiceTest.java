@@ -0,0 +1,102 @@
+package com.example.auth.services;
+
+import com.example.auth.config.RabbitMQConfig;
+import com.example.auth.dtos.RevocationEventDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TokenRevocationServiceTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final ReferenceTokenStore referenceTokenStore = mock(ReferenceTokenStore.class);
+    private final TokenRevocationService revocationService =
+            new TokenRevocationService(rabbitTemplate, referenceTokenStore, 300, 1000, 0.01);
+
+    @Test
+    void revokedTokenIsRejectedAndOthersAreNot() {
+        Instant now = Instant.now();
+        revocationService.revokeToken("jti-1", now.plusSeconds(300));
+
+        assertThat(revocationService.isRevoked(jwt("jti-1", "alice", now))).isTrue();
+        assertThat(revocationService.isRevoked(jwt("jti-2", "alice", now))).isFalse();
+        verify(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.REVOCATION_EXCHANGE), eq(""), any(RevocationEventDTO.class));
+    }
+
+    @Test
+    void revokingAUserRejectsTokensIssuedUpToTheRevocation() {
+        Instant now = Instant.now();
+        revocationService.revokeUser("alice");
+
+        assertThat(revocationService.isRevoked(jwt("jti-1", "alice", now.minusSeconds(60)))).isTrue();
+        assertThat(revocationService.isRevoked(jwt("jti-2", "alice", now.plusSeconds(60)))).isFalse();
+        assertThat(revocationService.isRevoked(jwt("jti-3", "bob", now.minusSeconds(60)))).isFalse();
+        verify(referenceTokenStore).revokeSubjects(Set.of("alice"));
+    }
+
+    @Test
+    void batchUserRevocationCoversEveryUser() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        revocationService.revokeUsers(List.of("alice", "bob"));
+
+        assertThat(revocationService.isRevoked(jwt("jti-1", "alice", issuedAt))).isTrue();
+        assertThat(revocationService.isRevoked(jwt("jti-2", "bob", issuedAt))).isTrue();
+        verify(referenceTokenStore).revokeSubjects(Set.of("alice", "bob"));
+    }
+
+    @Test
+    void revocationHoldsLocallyWhenTheBroadcastFails() {
+        doThrow(new AmqpException("broker down"))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class));
+        Instant now = Instant.now();
+
+        revocationService.revokeToken("jti-1", now.plusSeconds(300));
+
+        assertThat(revocationService.isRevoked(jwt("jti-1", "alice", now))).isTrue();
+    }
+
+    @Test
+    void revocationsFromOtherReplicasAreApplied() {
+        Instant now = Instant.now();
+
+        revocationService.receive(new RevocationEventDTO(RevocationEventDTO.Type.TOKEN, "jti-1",
+                now.plusSeconds(300).getEpochSecond()));
+
+        assertThat(revocationService.isRevoked(jwt("jti-1", "alice", now))).isTrue();
+    }
+
+    @Test
+    void expiredRevocationsArePurged() {
+        Instant now = Instant.now();
+        revocationService.revokeToken("expired", now.minusSeconds(1));
+        revocationService.revokeToken("live", now.plusSeconds(300));
+
+        revocationService.purgeExpired();
+
+        assertThat(revocationService.isRevoked(jwt("expired", "alice", now))).isFalse();
+        assertThat(revocationService.isRevoked(jwt("live", "alice", now))).isTrue();
+    }
+
+    private static Jwt jwt(String jti, String subject, Instant issuedAt) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .jti(jti)
+                .subject(subject)
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(300))
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 10_000;
+
+    @Test
+    void addedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        IntStream.range(0, ENTRIES).forEach(i -> filter.put("t:" + i));
+
+        assertThat(IntStream.range(0, ENTRIES).allMatch(i -> filter.mightContain("t:" + i))).isTrue();
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        IntStream.range(0, ENTRIES).forEach(i -> filter.put("t:" + i));
+
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("u:" + i)).count();
+
+        assertThat(falsePositives / 100_000d).isLessThan(0.02);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+
+        assertThat(filter.mightContain("t:0")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+}
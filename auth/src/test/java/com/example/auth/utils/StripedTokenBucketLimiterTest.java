@@ -0,0 +1,75 @@
+package com.example.auth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedTokenBucketLimiterTest {
+
+    // slow enough that no token comes back while a test runs
+    private static final double NO_REFILL = 1e-6;
+
+    @Test
+    void allowsABurstOfCapacityThenReportsTheWait() {
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(3, NO_REFILL, 1000);
+
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertThat(wait).isGreaterThan(TimeUnit.DAYS.toNanos(1));
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(1, NO_REFILL, 1000);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+        assertThat(limiter.tryAcquire("bob")).isZero();
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(1, 20, 1000);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        long wait = limiter.tryAcquire("alice");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(limiter.tryAcquire("alice")).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedKeyOfAFullStripeStartsOver() {
+        // 64 keys over 64 stripes: one key per stripe
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(1, NO_REFILL, 64);
+        String first = "user-0";
+        String second = sameStripeAs(first);
+
+        assertThat(limiter.tryAcquire(first)).isZero();
+        assertThat(limiter.tryAcquire(first)).isPositive();
+        assertThat(limiter.tryAcquire(second)).isZero();
+
+        // first was evicted by second and gets a full bucket again
+        assertThat(limiter.tryAcquire(first)).isZero();
+    }
+
+    private static String sameStripeAs(String key) {
+        for (int i = 1; ; i++) {
+            String candidate = "user-" + i;
+            if (stripe(candidate) == stripe(key)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & 63;
+    }
+}
@@ -1,9 +1,23 @@
 package com.example.demo.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.MalformedURLException;
+import java.net.URI;
 import java.text.ParseException;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Configuration
 public class JwtConfig {
@@ -23,4 +37,23 @@ public class JwtConfig {
             }
         };
     }
+
+    /**
+     * Verifies auth's JWTs against its published JWK set, accepting only the algorithms listed in
+     * {@code jwt.accepted-algorithms}. Keys are fetched on first use and cached, so startup does
+     * not depend on auth being up.
+     */
+    @Bean
+    public JwtDecoder jwtDecoder(@Value("${jwt.jwks.uri}") String jwksUri,
+                                 @Value("${jwt.accepted-algorithms}") Set<String> acceptedAlgorithms) throws MalformedURLException {
+        JWKSource<SecurityContext> jwkSource = JWKSourceBuilder.create(URI.create(jwksUri).toURL()).build();
+        Set<JWSAlgorithm> algorithms = acceptedAlgorithms.stream()
+                .map(JWSAlgorithm::parse)
+                .collect(Collectors.toSet());
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, jwkSource));
+        // claims are validated by NimbusJwtDecoder's own validators
+        processor.setJWTClaimsSetVerifier((claims, context) -> { });
+        return new NimbusJwtDecoder(processor);
+    }
 }
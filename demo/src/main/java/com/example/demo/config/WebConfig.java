@@ -0,0 +1,23 @@
+package com.example.demo.config;
+
+import com.example.demo.services.JwtService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final JwtService jwtService;
+
+    public WebConfig(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new TokenClaimsArgumentResolver(jwtService));
+    }
+}
@@ -1,24 +1,38 @@
 package com.example.demo.controllers;
 
-import com.example.demo.dtos.PersonDTO;
+import com.example.demo.dtos.DashboardDTO;
 import com.example.demo.dtos.PersonDetailsDTO;
+import com.example.demo.dtos.PersonFieldsDTO;
+import com.example.demo.dtos.PersonPage;
+import com.example.demo.dtos.PersonStatisticsDTO;
+import com.example.demo.dtos.TokenClaims;
 import com.example.demo.entities.Person;
-import com.example.demo.services.JwtService;
+import com.example.demo.handlers.exceptions.model.CustomException;
+import com.example.demo.services.DashboardService;
 import com.example.demo.services.PersonService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
 import java.net.URI;
-import java.text.ParseException;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -26,46 +40,153 @@ import java.util.UUID;
 @Validated
 public class PersonController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+    private static final List<String> PERSON_FIELDS = List.of("id", "name", "address", "age");
+    // what GET /people returns without ?fields=, the PersonDTO shape
+    private static final List<String> PAGE_FIELDS = List.of("id", "name", "age");
+    private static final String EXPAND_DEVICES = "devices";
+
     private final PersonService personService;
-    private final JwtService jwtService;
+    private final DashboardService dashboardService;
+    private final int batchMaxSize;
 
-    public PersonController(PersonService personService, JwtService jwtService) {
+    public PersonController(PersonService personService, DashboardService dashboardService,
+                            @Value("${people.batch.max-size}") int batchMaxSize) {
         this.personService = personService;
-        this.jwtService = jwtService;
+        this.dashboardService = dashboardService;
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    private void checkAdminRole(TokenClaims claims) {
+        if (!claims.isAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Admin role required");
+        }
     }
 
-    private void checkAdminRole(String authHeader) {
-        try {
-            String role = jwtService.getRoleFromToken(authHeader);
-            if (role == null || !role.equals("ROLE_ADMIN")) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Admin role required");
+    private void checkUser(TokenClaims claims, UUID uuid) {
+        if (claims.userId() == null || !claims.userId().equals(uuid.toString())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: You cannot fetch other clients' data");
+        }
+    }
+
+    private static Set<String> selectFields(List<String> fields, List<String> defaults) {
+        Set<String> selected = new LinkedHashSet<>();
+        if (fields != null) {
+            for (String field : fields) {
+                String name = field.strip();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!PERSON_FIELDS.contains(name)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Unknown field '" + name + "', supported fields are " + String.join(",", PERSON_FIELDS));
+                }
+                selected.add(name);
             }
-        } catch (ParseException e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Token");
         }
+        return selected.isEmpty() ? new LinkedHashSet<>(defaults) : selected;
     }
 
-    private void checkUser(String authHeader, UUID uuid) {
-        try {
-            String id = jwtService.getIdFromToken(authHeader);
-            if (id == null || !id.equals(uuid.toString())) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: You cannot fetch other clients' data");
+    private static boolean expandsDevices(List<String> expand) {
+        boolean devices = false;
+        if (expand != null) {
+            for (String relation : expand) {
+                String name = relation.strip();
+                if (!name.isEmpty() && !EXPAND_DEVICES.equals(name)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Unknown expansion '" + name + "', only '" + EXPAND_DEVICES + "' is supported");
+                }
+                devices |= !name.isEmpty();
             }
-        } catch (ParseException e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Token");
         }
+        return devices;
+    }
 
+    private static ResponseEntity<List<?>> pageResponse(PersonPage<?> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.people());
     }
 
+    /**
+     * Pages through people in id order. The body stays a plain list; when more rows exist the
+     * {@value #NEXT_CURSOR_HEADER} header carries the {@code after} value for the next page.
+     * <p>
+     * {@code ?fields=name,age} selects only those columns (id is always returned) and
+     * {@code ?expand=devices} adds each person's devices, fetched for the whole page with one
+     * call to device-service.
+     */
     @GetMapping
-    public ResponseEntity<List<PersonDTO>> getPeople(@RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
-        try {
-            String username = jwtService.getUsernameFromToken(authHeader);
-        } catch (ParseException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    public ResponseEntity<List<?>> getPeople(TokenClaims claims,
+                                             @RequestParam(required = false) UUID after,
+                                             @RequestParam(required = false) @Min(1) Integer limit,
+                                             @RequestParam(required = false) String namePrefix,
+                                             @RequestParam(required = false) @Min(0) Integer minAge,
+                                             @RequestParam(required = false) @Min(0) Integer maxAge,
+                                             @RequestParam(required = false) List<String> fields,
+                                             @RequestParam(required = false) List<String> expand,
+                                             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        checkAdminRole(claims);
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minAge must not be greater than maxAge");
+        }
+        if (fields == null && expand == null) {
+            return pageResponse(personService.findPersons(after, limit, namePrefix, minAge, maxAge));
+        }
+        boolean expandDevices = expandsDevices(expand);
+        PersonPage<PersonFieldsDTO> page = personService.findPersonFields(after, limit, namePrefix, minAge, maxAge,
+                selectFields(fields, PAGE_FIELDS));
+        if (expandDevices) {
+            personService.expandDevices(page.people(), authorization);
         }
-        return ResponseEntity.ok(personService.findPersons());
+        return pageResponse(page);
+    }
+
+    /**
+     * Streams all people as NDJSON. The response is written on an async thread, so the request
+     * thread is released; X-Accel-Buffering stops nginx from spooling the whole export to disk.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPeople(TokenClaims claims) {
+        checkAdminRole(claims);
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, EXPORT_BUFFER_BYTES);
+            personService.exportPersons(buffered);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("X-Accel-Buffering", "no")
+                .body(body);
+    }
+
+    /**
+     * User counts, total and per age band, served from in-memory counters.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<PersonStatisticsDTO> getStatistics(TokenClaims claims) {
+        checkAdminRole(claims);
+        return ResponseEntity.ok(personService.getStatistics());
+    }
+
+    /**
+     * Looks up many people with one query, for callers that would otherwise hit /people/{id} once
+     * per id. The result is keyed by id in request order; unknown ids are left out.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<UUID, PersonDetailsDTO>> getPeopleBatch(@RequestBody List<UUID> ids, TokenClaims claims) {
+        checkAdminRole(claims);
+        if (ids.size() > batchMaxSize) {
+            throw new CustomException("Batch too large", HttpStatus.BAD_REQUEST, Person.class.getSimpleName(),
+                    List.of("at most " + batchMaxSize + " ids can be looked up per request"));
+        }
+        if (ids.contains(null)) {
+            throw new CustomException("Invalid batch", HttpStatus.BAD_REQUEST, Person.class.getSimpleName(),
+                    List.of("ids must not be null"));
+        }
+        return ResponseEntity.ok(personService.findPersonsByIds(ids));
     }
 
     @PostMapping
@@ -79,15 +200,36 @@ public class PersonController {
         return ResponseEntity.created(location).build(); // 201 + Location header
     }
 
+    /**
+     * Supports the same {@code ?fields=} and {@code ?expand=devices} parameters as {@link #getPeople}.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<PersonDetailsDTO> getPerson(@PathVariable UUID id, @RequestHeader("Authorization") String authHeader) {
-        try {
-            if (!jwtService.getRoleFromToken(authHeader).equals("ROLE_ADMIN"))
-                checkUser(authHeader, id);
-        } catch (ParseException e) {
-            throw new RuntimeException(e);
+    public ResponseEntity<?> getPerson(@PathVariable UUID id, TokenClaims claims,
+                                       @RequestParam(required = false) List<String> fields,
+                                       @RequestParam(required = false) List<String> expand,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (!claims.isAdmin())
+            checkUser(claims, id);
+        if (fields == null && expand == null) {
+            return ResponseEntity.ok(personService.findPersonById(id));
+        }
+        boolean expandDevices = expandsDevices(expand);
+        PersonFieldsDTO person = personService.findPersonFieldsById(id, selectFields(fields, PERSON_FIELDS));
+        if (expandDevices) {
+            personService.expandDevices(List.of(person), authorization);
         }
-        return ResponseEntity.ok(personService.findPersonById(id));
+        return ResponseEntity.ok(person);
+    }
+
+    /**
+     * Profile and devices in one call; device-service is queried directly instead of through nginx.
+     */
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<DashboardDTO> getDashboard(@PathVariable UUID id, TokenClaims claims,
+                                                     @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (!claims.isAdmin())
+            checkUser(claims, id);
+        return ResponseEntity.ok(dashboardService.getDashboard(id, authorization));
     }
 
     @DeleteMapping("/{id}")
@@ -100,8 +242,8 @@ public class PersonController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<PersonDetailsDTO> updatePerson(@Valid @RequestBody PersonDetailsDTO personDetailsDTO, @PathVariable UUID id, @RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
+    public ResponseEntity<PersonDetailsDTO> updatePerson(@Valid @RequestBody PersonDetailsDTO personDetailsDTO, @PathVariable UUID id, TokenClaims claims) {
+        checkAdminRole(claims);
         PersonDetailsDTO personDTO = personService.update(personDetailsDTO);
         if (id.equals(personDTO.getId())) {
             return ResponseEntity.status(204).body(personDTO);
@@ -0,0 +1,29 @@
+package com.example.demo.dtos;
+
+import java.util.List;
+
+/**
+ * A user's profile and devices in one response. When device-service does not answer in time
+ * the profile is still returned, with {@code devices} null and {@code devicesAvailable} false.
+ */
+public class DashboardDTO {
+    private PersonDetailsDTO person;
+    private List<DeviceDTO> devices;
+    private boolean devicesAvailable;
+
+    public DashboardDTO() {}
+    public DashboardDTO(PersonDetailsDTO person, List<DeviceDTO> devices) {
+        this.person = person;
+        this.devices = devices;
+        this.devicesAvailable = devices != null;
+    }
+
+    public PersonDetailsDTO getPerson() { return person; }
+    public void setPerson(PersonDetailsDTO person) { this.person = person; }
+
+    public List<DeviceDTO> getDevices() { return devices; }
+    public void setDevices(List<DeviceDTO> devices) { this.devices = devices; }
+
+    public boolean isDevicesAvailable() { return devicesAvailable; }
+    public void setDevicesAvailable(boolean devicesAvailable) { this.devicesAvailable = devicesAvailable; }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A person limited to the fields requested with {@code ?fields=}, optionally with their devices
+ * ({@code ?expand=devices}). Fields that were not selected are null and left out of the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PersonFieldsDTO {
+    private UUID id;
+    private String name;
+    private String address;
+    private Integer age;
+    private List<DeviceDTO> devices;
+
+    public PersonFieldsDTO() {}
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public Integer getAge() { return age; }
+    public void setAge(Integer age) { this.age = age; }
+
+    public List<DeviceDTO> getDevices() { return devices; }
+    public void setDevices(List<DeviceDTO> devices) { this.devices = devices; }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.dtos;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of {@code GET /people}; {@code nextCursor} is the id to pass as {@code after}
+ * for the following page, or null on the last page.
+ */
+public record PersonPage<T>(List<T> people, UUID nextCursor) {
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dtos;
+
+import java.time.Instant;
+import java.util.Map;
+
+public class PersonStatisticsDTO {
+    private long total;
+    private Map<String, Long> byAgeBand;
+    private Instant reconciledAt;
+
+    public PersonStatisticsDTO() {}
+    public PersonStatisticsDTO(long total, Map<String, Long> byAgeBand, Instant reconciledAt) {
+        this.total = total; this.byAgeBand = byAgeBand; this.reconciledAt = reconciledAt;
+    }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public Map<String, Long> getByAgeBand() { return byAgeBand; }
+    public void setByAgeBand(Map<String, Long> byAgeBand) { this.byAgeBand = byAgeBand; }
+
+    /** when the counters were last replaced by a SQL aggregate, null before the first run */
+    public Instant getReconciledAt() { return reconciledAt; }
+    public void setReconciledAt(Instant reconciledAt) { this.reconciledAt = reconciledAt; }
+}
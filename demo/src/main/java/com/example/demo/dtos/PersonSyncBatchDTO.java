@@ -0,0 +1,25 @@
+package com.example.demo.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class PersonSyncBatchDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<PersonSyncDTO> people;
+
+    public PersonSyncBatchDTO() {
+    }
+
+    public PersonSyncBatchDTO(List<PersonSyncDTO> people) {
+        this.people = people;
+    }
+
+    public List<PersonSyncDTO> getPeople() {
+        return people;
+    }
+
+    public void setPeople(List<PersonSyncDTO> people) {
+        this.people = people;
+    }
+}
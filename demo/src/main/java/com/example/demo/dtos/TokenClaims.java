@@ -0,0 +1,14 @@
+package com.example.demo.dtos;
+
+/**
+ * The caller's identity, taken from the bearer token once per request and injected into
+ * controller methods by {@link com.example.demo.config.TokenClaimsArgumentResolver}.
+ */
+public record TokenClaims(String subject, String userId, String scope) {
+
+    public static final String ADMIN_ROLE = "ROLE_ADMIN";
+
+    public boolean isAdmin() {
+        return ADMIN_ROLE.equals(scope);
+    }
+}
@@ -2,7 +2,12 @@ package com.example.demo.dtos.builders;
 
 import com.example.demo.dtos.PersonDTO;
 import com.example.demo.dtos.PersonDetailsDTO;
+import com.example.demo.dtos.PersonFieldsDTO;
 import com.example.demo.entities.Person;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+
+import java.util.UUID;
 
 public class PersonBuilder {
 
@@ -17,6 +22,21 @@ public class PersonBuilder {
         return new PersonDetailsDTO(person.getId(), person.getName(), person.getAddress(), person.getAge());
     }
 
+    public static PersonFieldsDTO toPersonFieldsDTO(Tuple tuple) {
+        PersonFieldsDTO person = new PersonFieldsDTO();
+        for (TupleElement<?> element : tuple.getElements()) {
+            Object value = tuple.get(element);
+            switch (element.getAlias()) {
+                case "id" -> person.setId((UUID) value);
+                case "name" -> person.setName((String) value);
+                case "address" -> person.setAddress((String) value);
+                case "age" -> person.setAge((Integer) value);
+                default -> throw new IllegalArgumentException("Unknown person field " + element.getAlias());
+            }
+        }
+        return person;
+    }
+
     public static Person toEntity(PersonDetailsDTO personDetailsDTO) {
         return new Person(personDetailsDTO.getId() ,personDetailsDTO.getName(),
                 personDetailsDTO.getAddress(),
@@ -0,0 +1,21 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.Person;
+import jakarta.persistence.Tuple;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tuple projections of {@link Person}: only the named attributes are selected, so columns a
+ * client did not ask for are never read.
+ */
+public interface PersonFieldsRepository {
+
+    /**
+     * Up to {@code limit} people matching {@code filter} in id order, as tuples holding the given
+     * attributes under their own names as aliases.
+     */
+    List<Tuple> findFields(Specification<Person> filter, Collection<String> fields, int limit);
+}
@@ -1,15 +1,23 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dtos.PersonDTO;
 import com.example.demo.entities.Person;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface PersonRepository extends JpaRepository<Person, UUID> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface PersonRepository extends JpaRepository<Person, UUID>, JpaSpecificationExecutor<Person>,
+        PersonFieldsRepository {
 
     /**
      * Example: JPA generate query by existing field
@@ -25,4 +33,10 @@ public interface PersonRepository extends JpaRepository<Person, UUID> {
             "AND p.age >= 60  ")
     Optional<Person> findSeniorsByName(@Param("name") String name);
 
+    // DTO projection, so nothing accumulates in the persistence context while exporting; must run in a
+    // transaction so the PostgreSQL driver streams rows by fetch size instead of loading them all
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.demo.dtos.PersonDTO(p.id, p.name, p.age) FROM Person p")
+    Stream<PersonDTO> streamAllForExport();
+
 }
@@ -0,0 +1,43 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.Person;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.UUID;
+
+/**
+ * Filters for {@link PersonRepository#findBy}; each one is only added when its parameter is set,
+ * so the generated SQL never carries "? IS NULL OR ..." branches.
+ */
+public class PersonSpecifications {
+
+    private PersonSpecifications() {
+    }
+
+    public static Specification<Person> idEquals(UUID id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<Person> idAfter(UUID after) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+    }
+
+    /**
+     * Case-insensitive name prefix; LIKE wildcards in the prefix are matched literally.
+     */
+    public static Specification<Person> nameStartsWith(String prefix) {
+        String pattern = prefix.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    public static Specification<Person> ageAtLeast(int minAge) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), minAge);
+    }
+
+    public static Specification<Person> ageAtMost(int maxAge) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), maxAge);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.DashboardDTO;
+import com.example.demo.dtos.DeviceDTO;
+import com.example.demo.dtos.PersonDetailsDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds a user's dashboard from the local profile and device-service's device list, fetched
+ * concurrently so the response takes as long as the slower of the two rather than their sum.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardService.class);
+
+    // kept private to this service: an Executor bean would replace Boot's applicationTaskExecutor
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final PersonService personService;
+    private final DeviceServiceClient deviceServiceClient;
+    private final long devicesTimeoutMillis;
+
+    public DashboardService(PersonService personService,
+                            DeviceServiceClient deviceServiceClient,
+                            @Value("${device.service.dashboard-timeout}") Duration devicesTimeout) {
+        this.personService = personService;
+        this.deviceServiceClient = deviceServiceClient;
+        this.devicesTimeoutMillis = devicesTimeout.toMillis();
+    }
+
+    /**
+     * Fails like {@link PersonService#findPersonById} when the person does not exist; a slow or
+     * failing device-service only leaves the device list out.
+     */
+    public DashboardDTO getDashboard(UUID id, String authorization) {
+        Future<List<DeviceDTO>> devices = executor.submit(() -> deviceServiceClient.findDevicesByUserId(id, authorization));
+        Future<PersonDetailsDTO> person = executor.submit(() -> personService.findPersonById(id));
+        try {
+            return new DashboardDTO(await(person), awaitDevices(id, devices));
+        } finally {
+            devices.cancel(true);
+        }
+    }
+
+    private List<DeviceDTO> awaitDevices(UUID id, Future<List<DeviceDTO>> devices) {
+        try {
+            return devices.get(devicesTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Devices of user {} not returned within {} ms", id, devicesTimeoutMillis);
+        } catch (ExecutionException e) {
+            LOGGER.warn("Could not fetch devices of user {}: {}", id, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
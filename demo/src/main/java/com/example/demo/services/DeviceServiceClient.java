@@ -0,0 +1,81 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.DeviceDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Calls device-service directly on the internal network, skipping nginx and its auth
+ * subrequest. The JDK client keeps connections alive and reuses them across calls.
+ */
+@Component
+public class DeviceServiceClient {
+
+    private static final ParameterizedTypeReference<List<DeviceDTO>> DEVICE_LIST = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<Map<UUID, List<DeviceDTO>>> DEVICES_BY_USER = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestClient restClient;
+
+    public DeviceServiceClient(@Value("${device.service.url}") String baseUrl,
+                               @Value("${device.service.connect-timeout}") Duration connectTimeout,
+                               @Value("${device.service.read-timeout}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        // built directly: Boot 4 only auto-configures RestClient.Builder with the restclient starter
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    /**
+     * @param authorization the caller's Authorization header, forwarded for jwt.verification=local
+     */
+    public List<DeviceDTO> findDevicesByUserId(UUID userId, String authorization) {
+        return restClient.get()
+                .uri("/devices/user/{userId}", userId)
+                .headers(forward(authorization))
+                .retrieve()
+                .body(DEVICE_LIST);
+    }
+
+    /**
+     * Devices of all given users with one request, keyed by user id.
+     */
+    public Map<UUID, List<DeviceDTO>> findDevicesByUserIds(Collection<UUID> userIds, String authorization) {
+        return restClient.post()
+                .uri("/devices/user/batch")
+                .headers(forward(authorization))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(userIds)
+                .retrieve()
+                .body(DEVICES_BY_USER);
+    }
+
+    private static Consumer<HttpHeaders> forward(String authorization) {
+        return headers -> {
+            if (authorization != null) {
+                headers.set(HttpHeaders.AUTHORIZATION, authorization);
+            }
+        };
+    }
+}
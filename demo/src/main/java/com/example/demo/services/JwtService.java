@@ -1,9 +1,10 @@
 package com.example.demo.services;
 
 
+import com.example.demo.dtos.TokenClaims;
 import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
 import com.example.demo.config.JwtConfig.JwtTokenParser;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
 
 import java.text.ParseException;
@@ -11,38 +12,30 @@ import java.text.ParseException;
 @Service
 public class JwtService {
 
+    // opaque reference tokens are resolved by the gateway, which forwards their claims in these headers
+    private static final String REFERENCE_TOKEN_PREFIX = "rt_";
+    private static final String SUBJECT_HEADER = "X-Auth-Subject";
+    private static final String USER_ID_HEADER = "X-Auth-User-Id";
+    private static final String SCOPE_HEADER = "X-Auth-Scope";
+
     private final JwtTokenParser tokenParser;
+    private final HttpServletRequest request;
 
-    public JwtService(JwtTokenParser tokenParser) {
+    public JwtService(JwtTokenParser tokenParser, HttpServletRequest request) {
         this.tokenParser = tokenParser;
+        this.request = request;
     }
 
-    public String getUsernameFromToken(String authHeader) throws ParseException {
-        String token = authHeader.substring(7);
-
-        SignedJWT signedJWT = tokenParser.parse(token);
-
-        JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
-        return claimsSet.getSubject();
-    }
-
-    public String getIdFromToken(String authHeader) throws ParseException {
-        String token = authHeader.substring(7);
-
-        SignedJWT signedJWT = tokenParser.parse(token);
-
-        JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
-        return (String) claimsSet.getClaim("userId");
-    }
-
-
-    public String getRoleFromToken(String authHeader) throws ParseException {
+    /**
+     * Reads subject, userId and scope from an "Authorization: Bearer ..." header, parsing the token once.
+     */
+    public TokenClaims getClaims(String authHeader) throws ParseException {
         String token = authHeader.substring(7);
+        if (token.startsWith(REFERENCE_TOKEN_PREFIX)) {
+            return new TokenClaims(request.getHeader(SUBJECT_HEADER), request.getHeader(USER_ID_HEADER), request.getHeader(SCOPE_HEADER));
+        }
 
-        SignedJWT signedJWT = tokenParser.parse(token);
-
-        JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
-
-        return (String) claimsSet.getClaim("scope");
+        JWTClaimsSet claimsSet = tokenParser.parse(token).getJWTClaimsSet();
+        return new TokenClaims(claimsSet.getSubject(), (String) claimsSet.getClaim("userId"), (String) claimsSet.getClaim("scope"));
     }
-}
\ No newline at end of file
+}
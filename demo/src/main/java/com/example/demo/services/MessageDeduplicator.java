@@ -0,0 +1,65 @@
+package com.example.demo.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded set of recently applied RabbitMQ message ids. A redelivery (consumer restart before the
+ * ack, or auth republishing a spooled event) is skipped while its id is still remembered; once
+ * it has been forgotten the idempotent upsert/delete makes applying it again harmless.
+ * <p>
+ * Ids are only recorded once their message has been applied, so a message whose write failed is
+ * applied again when it is redelivered rather than skipped.
+ */
+@Component
+public class MessageDeduplicator {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Boolean> seen;
+
+    public MessageDeduplicator(@Value("${user-sync.dedupe.max-entries}") int maxEntries) {
+        this.seen = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Tells whether a message with this id was already applied. Messages without an id cannot be
+     * deduplicated and never count as applied.
+     */
+    public boolean isApplied(String messageId) {
+        if (messageId == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return seen.containsKey(messageId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records messages whose writes have committed; null ids are ignored.
+     */
+    public void markApplied(Collection<String> messageIds) {
+        lock.lock();
+        try {
+            for (String messageId : messageIds) {
+                if (messageId != null) {
+                    seen.put(messageId, Boolean.TRUE);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.PersonDetailsDTO;
+import com.example.demo.utils.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of {@link PersonDetailsDTO} by id, bounded by an estimate of its heap
+ * footprint and evicting least recently used entries first. Entries also expire after a TTL,
+ * which caps staleness if an invalidation is ever missed.
+ * <p>
+ * A load that overlaps an invalidation is returned but not stored, so a value read before an
+ * update commits cannot be cached after it.
+ * <p>
+ * Concurrent misses for the same id share one load. An invalidation detaches the running load, so
+ * requests arriving after a write never receive a value that may have been read before it.
+ */
+@Component
+public class PersonCache {
+
+    // object headers, the map entry, the UUID and the DTO's fields
+    private static final long ENTRY_OVERHEAD_BYTES = 200;
+
+    private record Entry(PersonDetailsDTO value, long bytes, long expiresAtNanos) {
+    }
+
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final SingleFlight<UUID, PersonDetailsDTO> loads;
+
+    public PersonCache(@Value("${person.cache.max-bytes}") long maxBytes,
+                       @Value("${person.cache.ttl}") Duration ttl,
+                       MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.loads = new SingleFlight<>("person.by-id", meterRegistry);
+
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tags("cache", "person", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tags("cache", "person", "result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", "person").register(meterRegistry);
+        Gauge.builder("cache.size", this, PersonCache::size)
+                .tag("cache", "person").register(meterRegistry);
+        Gauge.builder("cache.size.bytes", this, PersonCache::sizeInBytes)
+                .tag("cache", "person").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", this, PersonCache::hitRatio)
+                .tag("cache", "person").register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached person, or loads, caches and returns it. Exceptions thrown by the
+     * loader (e.g. not found) propagate and nothing is cached.
+     */
+    public PersonDetailsDTO get(UUID id, Function<UUID, PersonDetailsDTO> loader) {
+        PersonDetailsDTO cached = getIfPresent(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        long invalidationsBefore = invalidations.get();
+        PersonDetailsDTO loaded = loads.execute(id, () -> loader.apply(id));
+        lock.lock();
+        try {
+            if (invalidations.get() == invalidationsBefore) {
+                put(id, loaded);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the entry now and, inside a transaction, once more after commit: a read between the
+     * two sees the old row, and its value must not outlive the transaction.
+     */
+    public void invalidate(UUID id) {
+        remove(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(id);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll(Collection<UUID> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    public long size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double hitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private PersonDetailsDTO getIfPresent(UUID id) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+                entries.remove(id);
+                bytes -= entry.bytes();
+                return null;
+            }
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(UUID id) {
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            loads.forget(id);
+            Entry removed = entries.remove(id);
+            if (removed != null) {
+                bytes -= removed.bytes();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // caller holds the lock
+    private void put(UUID id, PersonDetailsDTO value) {
+        long entryBytes = estimateBytes(value);
+        if (entryBytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(id, new Entry(value, entryBytes, System.nanoTime() + ttlNanos));
+        if (previous != null) {
+            bytes -= previous.bytes();
+        }
+        bytes += entryBytes;
+
+        Iterator<Map.Entry<UUID, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long estimateBytes(PersonDetailsDTO person) {
+        return ENTRY_OVERHEAD_BYTES + stringBytes(person.getName()) + stringBytes(person.getAddress());
+    }
+
+    private static long stringBytes(String value) {
+        // String header plus backing array, assuming two bytes per char
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
@@ -1,41 +1,232 @@
 package com.example.demo.services;
 
 
+import com.example.demo.dtos.DeviceDTO;
 import com.example.demo.dtos.PersonDTO;
 import com.example.demo.dtos.PersonDetailsDTO;
+import com.example.demo.dtos.PersonFieldsDTO;
+import com.example.demo.dtos.PersonPage;
+import com.example.demo.dtos.PersonStatisticsDTO;
 import com.example.demo.dtos.builders.PersonBuilder;
 import com.example.demo.entities.Person;
 import com.example.demo.handlers.exceptions.model.ResourceNotFoundException;
 import com.example.demo.repositories.PersonRepository;
+import jakarta.persistence.Tuple;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.example.demo.repositories.PersonSpecifications.*;
 
 @Service
 public class PersonService {
     private static final Logger LOGGER = LoggerFactory.getLogger(PersonService.class);
+    private static final String DELETE_PERSON = "DELETE FROM person WHERE id = ? RETURNING age";
     private final PersonRepository personRepository;
+    private final PersonCache personCache;
+    private final PersonStatistics personStatistics;
+    private final JdbcTemplate jdbcTemplate;
+    private final DeviceServiceClient deviceServiceClient;
+    private final int defaultPageLimit;
+    private final int maxPageLimit;
+    private final ObjectWriter exportWriter;
 
     @Autowired
-    public PersonService(PersonRepository personRepository) {
+    public PersonService(PersonRepository personRepository,
+                         PersonCache personCache,
+                         PersonStatistics personStatistics,
+                         JdbcTemplate jdbcTemplate,
+                         DeviceServiceClient deviceServiceClient,
+                         JsonMapper jsonMapper,
+                         @Value("${people.page.default-limit}") int defaultPageLimit,
+                         @Value("${people.page.max-limit}") int maxPageLimit) {
         this.personRepository = personRepository;
+        this.personCache = personCache;
+        this.personStatistics = personStatistics;
+        this.jdbcTemplate = jdbcTemplate;
+        this.deviceServiceClient = deviceServiceClient;
+        this.exportWriter = jsonMapper.writerFor(PersonDTO.class);
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
     }
 
-    public List<PersonDTO> findPersons() {
-        List<Person> personList = personRepository.findAll();
-        return personList.stream()
+    /**
+     * Keyset page ordered by id: rows after the {@code after} cursor, so every page costs one
+     * index range scan of at most limit + 1 rows no matter how deep the client has paged.
+     */
+    public PersonPage<PersonDTO> findPersons(UUID after, Integer limit, String namePrefix, Integer minAge, Integer maxAge) {
+        int pageLimit = pageLimit(limit);
+        Specification<Person> filter = filter(after, namePrefix, minAge, maxAge);
+
+        // one extra row tells whether another page exists without a count query
+        List<Person> personList = personRepository.findBy(filter,
+                query -> query.sortBy(Sort.by("id")).limit(pageLimit + 1).all());
+        boolean hasMore = personList.size() > pageLimit;
+        if (hasMore) {
+            personList = personList.subList(0, pageLimit);
+        }
+        List<PersonDTO> people = personList.stream()
                 .map(PersonBuilder::toPersonDTO)
                 .collect(Collectors.toList());
+        return new PersonPage<>(people, hasMore ? personList.get(pageLimit - 1).getId() : null);
+    }
+
+    /**
+     * Same page as {@link #findPersons}, but selecting only {@code fields} (plus id, which the
+     * cursor needs) instead of hydrating entities.
+     */
+    public PersonPage<PersonFieldsDTO> findPersonFields(UUID after, Integer limit, String namePrefix, Integer minAge,
+                                                        Integer maxAge, Set<String> fields) {
+        int pageLimit = pageLimit(limit);
+        List<Tuple> rows = personRepository.findFields(filter(after, namePrefix, minAge, maxAge),
+                withId(fields), pageLimit + 1);
+        boolean hasMore = rows.size() > pageLimit;
+        if (hasMore) {
+            rows = rows.subList(0, pageLimit);
+        }
+        List<PersonFieldsDTO> people = rows.stream()
+                .map(PersonBuilder::toPersonFieldsDTO)
+                .collect(Collectors.toList());
+        return new PersonPage<>(people, hasMore ? people.get(pageLimit - 1).getId() : null);
+    }
+
+    /**
+     * Selects only {@code fields} of one person, bypassing the person cache.
+     */
+    public PersonFieldsDTO findPersonFieldsById(UUID id, Set<String> fields) {
+        List<Tuple> rows = personRepository.findFields(idEquals(id), withId(fields), 1);
+        if (rows.isEmpty()) {
+            LOGGER.error("Person with id {} was not found in db", id);
+            throw new ResourceNotFoundException(Person.class.getSimpleName() + " with id: " + id);
+        }
+        return PersonBuilder.toPersonFieldsDTO(rows.get(0));
+    }
+
+    /**
+     * Fills in the devices of all {@code people} with one call to device-service. If that call
+     * fails the people are left without devices rather than failing the whole response.
+     */
+    public void expandDevices(List<PersonFieldsDTO> people, String authorization) {
+        if (people.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = people.stream().map(PersonFieldsDTO::getId).toList();
+        Map<UUID, List<DeviceDTO>> devices;
+        try {
+            devices = deviceServiceClient.findDevicesByUserIds(ids, authorization);
+        } catch (RestClientException e) {
+            LOGGER.warn("Could not fetch devices of {} people: {}", ids.size(), e.getMessage());
+            return;
+        }
+        for (PersonFieldsDTO person : people) {
+            person.setDevices(devices.getOrDefault(person.getId(), List.of()));
+        }
     }
 
+    private int pageLimit(Integer limit) {
+        return limit == null ? defaultPageLimit : Math.min(limit, maxPageLimit);
+    }
+
+    private static Specification<Person> filter(UUID after, String namePrefix, Integer minAge, Integer maxAge) {
+        Specification<Person> filter = Specification.unrestricted();
+        if (after != null) {
+            filter = filter.and(idAfter(after));
+        }
+        if (namePrefix != null && !namePrefix.isBlank()) {
+            filter = filter.and(nameStartsWith(namePrefix.strip()));
+        }
+        if (minAge != null) {
+            filter = filter.and(ageAtLeast(minAge));
+        }
+        if (maxAge != null) {
+            filter = filter.and(ageAtMost(maxAge));
+        }
+        return filter;
+    }
+
+    private static Set<String> withId(Set<String> fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        selected.addAll(fields);
+        return selected;
+    }
+
+    /**
+     * Writes every person as one JSON object per line. Rows come from a database cursor and go
+     * straight to {@code out}, whose blocking writes hold the cursor back when the client reads slowly.
+     *
+     * @return the number of people written
+     */
+    @Transactional
+    public long exportPersons(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<PersonDTO> people = personRepository.streamAllForExport()) {
+            Iterator<PersonDTO> iterator = people.iterator();
+            while (iterator.hasNext()) {
+                out.write(exportWriter.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                count++;
+            }
+        }
+        out.flush();
+        LOGGER.debug("Exported {} people", count);
+        return count;
+    }
+
+    /**
+     * Cache misses for the same id that arrive while one is already loading wait for that load
+     * instead of issuing their own query, e.g. when a cold entry is requested by many clients at once.
+     */
     public PersonDetailsDTO findPersonById(UUID id) {
+        return personCache.get(id, this::loadPersonById);
+    }
+
+    public PersonStatisticsDTO getStatistics() {
+        return personStatistics.snapshot();
+    }
+
+    /**
+     * Resolves all ids with a single IN query; ids that do not exist are absent from the map.
+     */
+    public Map<UUID, PersonDetailsDTO> findPersonsByIds(Collection<UUID> ids) {
+        Map<UUID, PersonDetailsDTO> found = new LinkedHashMap<>();
+        for (Person person : personRepository.findAllById(new LinkedHashSet<>(ids))) {
+            found.put(person.getId(), PersonBuilder.toPersonDetailsDTO(person));
+        }
+        Map<UUID, PersonDetailsDTO> result = new LinkedHashMap<>();
+        for (UUID id : ids) {
+            PersonDetailsDTO person = found.get(id);
+            if (person != null) {
+                result.put(id, person);
+            }
+        }
+        return result;
+    }
+
+    private PersonDetailsDTO loadPersonById(UUID id) {
         Optional<Person> prosumerOptional = personRepository.findById(id);
         if (prosumerOptional.isEmpty()) {
             LOGGER.error("Person with id {} was not found in db", id);
@@ -47,11 +238,13 @@ public class PersonService {
     public UUID insert(PersonDetailsDTO personDTO) {
         Person person = PersonBuilder.toEntity(personDTO);
         person = personRepository.save(person);
+        personStatistics.added(person.getAge());
         LOGGER.debug("Person with id {} was inserted in db", person.getId());
         return person.getId();
     }
     @Transactional
     public PersonDetailsDTO update(PersonDetailsDTO personDTO) {
+        personCache.invalidate(personDTO.getId());
         Person person = personRepository.findById(personDTO.getId())
             .map(existingPerson -> {
                 LOGGER.debug("Person with id {} will be updated in db", personDTO.getId());
@@ -61,6 +254,7 @@ public class PersonService {
             })
             .orElseGet(() -> {
                 LOGGER.debug("Person with id {} will be inserted in db", personDTO.getId());
+                personStatistics.added(personDTO.getAge());
                 return PersonBuilder.toEntity(personDTO);
             });
 
@@ -71,8 +265,11 @@ public class PersonService {
 
     @Transactional
     public boolean delete(UUID id) {
-        if (personRepository.existsById(id)) {
-            personRepository.deleteById(id);
+        personCache.invalidate(id);
+        // single statement that also reports the age needed to keep the statistics exact
+        List<Integer> ages = jdbcTemplate.queryForList(DELETE_PERSON, Integer.class, id);
+        ages.forEach(personStatistics::removed);
+        if (!ages.isEmpty()) {
             LOGGER.debug("Person with id {} was deleted from db", id);
             return true;
         } else {
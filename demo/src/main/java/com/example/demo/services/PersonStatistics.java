@@ -0,0 +1,106 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.PersonStatisticsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory user counts per age band, adjusted as people are written so reads never touch the
+ * database. Writes made inside a transaction are counted once it commits, so a rolled back write
+ * is never counted.
+ * <p>
+ * Writers report exact deltas (an upsert that updates a person moves them between bands rather
+ * than adding one), but writes racing each other can still drift, so the counters are
+ * periodically replaced with a SQL aggregate.
+ */
+@Component
+public class PersonStatistics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersonStatistics.class);
+    private static final String COUNT_BY_AGE = "SELECT age, count(*) FROM person GROUP BY age";
+
+    // lower bound of each band; the last band is open-ended
+    private static final int[] BAND_LOWER_BOUNDS = {0, 18, 25, 35, 45, 55, 65};
+    private static final String[] BAND_NAMES = {"0-17", "18-24", "25-34", "35-44", "45-54", "55-64", "65+"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bands = new AtomicLongArray(BAND_LOWER_BOUNDS.length);
+    private volatile Instant reconciledAt;
+
+    public PersonStatistics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void added(int age) {
+        afterCommit(() -> bands.incrementAndGet(band(age)));
+    }
+
+    public void removed(int age) {
+        afterCommit(() -> bands.decrementAndGet(band(age)));
+    }
+
+    public PersonStatisticsDTO snapshot() {
+        Map<String, Long> byAgeBand = new LinkedHashMap<>();
+        long total = 0;
+        for (int i = 0; i < BAND_NAMES.length; i++) {
+            long count = Math.max(0, bands.get(i));
+            byAgeBand.put(BAND_NAMES[i], count);
+            total += count;
+        }
+        return new PersonStatisticsDTO(total, byAgeBand, reconciledAt);
+    }
+
+    /**
+     * Replaces the counters with a GROUP BY over the table. Writes committed while the aggregate
+     * runs may be counted twice or not at all until the next run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${people.stats.reconcile-interval-ms}", fixedDelayString = "${people.stats.reconcile-interval-ms}")
+    public void reconcile() {
+        long[] counted = new long[BAND_LOWER_BOUNDS.length];
+        jdbcTemplate.query(COUNT_BY_AGE, rs -> {
+            counted[band(rs.getInt(1))] += rs.getLong(2);
+        });
+        long drift = 0;
+        for (int i = 0; i < counted.length; i++) {
+            drift += Math.abs(bands.getAndSet(i, counted[i]) - counted[i]);
+        }
+        reconciledAt = Instant.now();
+        if (drift > 0) {
+            LOGGER.info("Person statistics reconciled, corrected a drift of {}", drift);
+        }
+    }
+
+    private static int band(int age) {
+        int band = 0;
+        while (band + 1 < BAND_LOWER_BOUNDS.length && age >= BAND_LOWER_BOUNDS[band + 1]) {
+            band++;
+        }
+        return band;
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
@@ -1,55 +1,205 @@
 package com.example.demo.services;
 
 import com.example.demo.config.RabbitMQConfig;
+import com.example.demo.dtos.PersonSyncBatchDTO;
 import com.example.demo.dtos.PersonSyncDTO;
-import com.example.demo.entities.Person;
-import com.example.demo.repositories.PersonRepository;
+import com.example.demo.dtos.UserDeletionBatchDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * The only consumer of user sync events from auth. Single events arrive through the batch
+ * container factory, so a burst of signups or deletions becomes one JDBC batch or one DELETE per
+ * listener call; messages whose id was already applied are dropped before that, and ids are
+ * recorded only for messages whose writes succeeded. If any event fails the listener call fails,
+ * so the container requeues the delivery instead of acking it.
+ */
 @Service
 public class UserConsumer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserConsumer.class);
-    private final PersonRepository personRepository;
+    // one statement for the whole batch; the old CTE reads the pre-statement ages so the statistics
+    // can be adjusted exactly for rows that were updated rather than inserted
+    private static final String UPSERT_PEOPLE =
+            "WITH input AS (SELECT * FROM unnest(?::uuid[], ?::text[], ?::text[], ?::int[]) AS t(id, name, address, age)), " +
+            "old AS (SELECT p.id, p.age FROM person p JOIN input i ON p.id = i.id), " +
+            "up AS (INSERT INTO person (id, name, address, age) SELECT id, name, address, age FROM input " +
+            "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, address = EXCLUDED.address, age = EXCLUDED.age " +
+            "RETURNING id, age, (xmax = 0) AS inserted) " +
+            "SELECT up.age, up.inserted, old.age AS old_age FROM up LEFT JOIN old ON old.id = up.id";
+    private static final String DELETE_PEOPLE = "DELETE FROM person WHERE id = ANY(?) RETURNING age";
 
-    public UserConsumer(PersonRepository personRepository) {
-        this.personRepository = personRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PersonCache personCache;
+    private final PersonStatistics personStatistics;
+    private final MessageDeduplicator deduplicator;
+
+    public UserConsumer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, PersonCache personCache,
+                        PersonStatistics personStatistics, MessageDeduplicator deduplicator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.personCache = personCache;
+        this.personStatistics = personStatistics;
+        this.deduplicator = deduplicator;
     }
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_CREATE)
-    public void receiveUserCreation(PersonSyncDTO personSyncDTO) {
-        try {
-            LOGGER.info("Received user creation event for ID: {}", personSyncDTO.getId());
-            Person person = new Person(
-                    personSyncDTO.getId(),
-                    personSyncDTO.getName(),
-                    personSyncDTO.getAddress(),
-                    personSyncDTO.getAge()
-            );
-            personRepository.save(person);
-            LOGGER.info("User saved to database: {}", person.getId());
-        } catch (Exception e) {
-            LOGGER.error("Error processing user creation event", e);
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_CREATE, containerFactory = RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+    public void receiveUserCreations(List<Message<PersonSyncDTO>> messages) {
+        List<Message<PersonSyncDTO>> fresh = firstDeliveries(messages, "user creation");
+        if (!fresh.isEmpty()) {
+            Set<PersonSyncDTO> saved = saveAll(fresh.stream().map(Message::getPayload).toList());
+            deduplicator.markApplied(fresh.stream()
+                    .filter(m -> saved.contains(m.getPayload()))
+                    .map(UserConsumer::messageId)
+                    .toList());
+            requeueUnless(saved.size() == fresh.size(), fresh.size() - saved.size(), "user creation");
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_CREATE_BATCH)
+    public void receiveUserCreationBatch(Message<PersonSyncBatchDTO> message) {
+        for (Message<PersonSyncBatchDTO> fresh : firstDeliveries(List.of(message), "user creation batch")) {
+            List<PersonSyncDTO> people = fresh.getPayload().getPeople();
+            LOGGER.info("Received user creation batch event for {} users", people.size());
+            requeueUnless(saveAll(people).size() == people.size(), 1, "user creation batch");
+            deduplicator.markApplied(List.of(messageId(fresh)));
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_DELETE, containerFactory = RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+    public void receiveUserDeletions(List<Message<UUID>> messages) {
+        List<Message<UUID>> fresh = firstDeliveries(messages, "user deletion");
+        if (!fresh.isEmpty()) {
+            deleteAll(fresh.stream().map(Message::getPayload).toList());
+            deduplicator.markApplied(fresh.stream().map(UserConsumer::messageId).toList());
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_DELETE_BATCH)
+    public void receiveUserDeletionBatch(Message<UserDeletionBatchDTO> message) {
+        for (Message<UserDeletionBatchDTO> fresh : firstDeliveries(List.of(message), "user deletion batch")) {
+            List<UUID> ids = fresh.getPayload().getIds();
+            LOGGER.info("Received user deletion batch event for {} users", ids.size());
+            deleteAll(ids);
+            deduplicator.markApplied(List.of(messageId(fresh)));
+        }
+    }
+
+    private <T> List<Message<T>> firstDeliveries(List<Message<T>> messages, String event) {
+        // also drops a second copy of the same message within one batch
+        Set<String> batchIds = new HashSet<>();
+        List<Message<T>> fresh = messages.stream()
+                .filter(m -> {
+                    String messageId = messageId(m);
+                    return !deduplicator.isApplied(messageId) && (messageId == null || batchIds.add(messageId));
+                })
+                .toList();
+        LOGGER.info("Received {} {} events", messages.size(), event);
+        if (fresh.size() < messages.size()) {
+            LOGGER.info("Skipped {} already applied {} events", messages.size() - fresh.size(), event);
+        }
+        return fresh;
+    }
+
+    /**
+     * Fails the listener call so the container rejects and requeues the whole delivery; events that
+     * were applied are already recorded and skipped when it comes back.
+     */
+    private static void requeueUnless(boolean applied, int failed, String event) {
+        if (!applied) {
+            throw new IllegalStateException(failed + " " + event + " events could not be applied, requeueing");
         }
     }
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_DELETE)
-    public void receiveUserDeletion(UUID id) {
+    private static String messageId(Message<?> message) {
+        return message.getHeaders().get(AmqpHeaders.MESSAGE_ID, String.class);
+    }
+
+    /**
+     * Upserts all people in one transaction. If that fails, each person is retried in a transaction
+     * of its own so one bad record does not cost the rest of the batch; statistics only follow commits.
+     *
+     * @return the people that were saved (by identity)
+     */
+    private Set<PersonSyncDTO> saveAll(List<PersonSyncDTO> people) {
+        Set<PersonSyncDTO> saved = Collections.newSetFromMap(new IdentityHashMap<>());
         try {
-            LOGGER.info("Received user deletion event for ID: {}", id);
-            if (personRepository.existsById(id)) {
-                personRepository.deleteById(id);
-                LOGGER.info("User deleted from database: {}", id);
-            } else {
-                LOGGER.warn("User with ID {} not found for deletion", id);
-            }
+            transactionTemplate.executeWithoutResult(status -> upsert(people));
+            saved.addAll(people);
+            LOGGER.info("{} users saved to database", people.size());
         } catch (Exception e) {
-            LOGGER.error("Error processing user deletion event", e);
+            LOGGER.error("Error processing {} user creation events as one batch, retrying one by one", people.size(), e);
+            for (PersonSyncDTO person : people) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> upsert(List.of(person)));
+                    saved.add(person);
+                } catch (Exception ex) {
+                    LOGGER.error("Error processing user creation event for ID: {}", person.getId(), ex);
+                }
+            }
         }
+        return saved;
+    }
+
+    private void upsert(List<PersonSyncDTO> people) {
+        // ON CONFLICT cannot touch the same row twice in one statement; the last event for an id wins
+        Map<UUID, PersonSyncDTO> byId = new LinkedHashMap<>();
+        people.forEach(person -> byId.put(person.getId(), person));
+        Collection<PersonSyncDTO> rows = byId.values();
+
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(UPSERT_PEOPLE);
+            statement.setArray(1, con.createArrayOf("uuid", rows.stream().map(PersonSyncDTO::getId).toArray()));
+            statement.setArray(2, con.createArrayOf("text", rows.stream().map(PersonSyncDTO::getName).toArray()));
+            statement.setArray(3, con.createArrayOf("text", rows.stream().map(PersonSyncDTO::getAddress).toArray()));
+            statement.setArray(4, con.createArrayOf("int4", rows.stream().map(PersonSyncDTO::getAge).toArray()));
+            return statement;
+        }, rs -> {
+            // exact deltas: an update moves the person between bands only when the age changed;
+            // PersonStatistics defers them to afterCommit, so a rolled back batch never counts
+            int age = rs.getInt("age");
+            if (rs.getBoolean("inserted")) {
+                personStatistics.added(age);
+            } else if (rs.getInt("old_age") != age) {
+                personStatistics.removed(rs.getInt("old_age"));
+                personStatistics.added(age);
+            }
+        });
+        personCache.invalidateAll(byId.keySet());
+    }
+
+    /**
+     * Failures propagate, so the container requeues the deletions instead of acking them.
+     */
+    private void deleteAll(List<UUID> ids) {
+        // one statement; ids that are already gone are simply not matched
+        int[] deleted = new int[1];
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(DELETE_PEOPLE);
+            statement.setArray(1, con.createArrayOf("uuid", ids.toArray()));
+            return statement;
+        }, rs -> {
+            personStatistics.removed(rs.getInt("age"));
+            deleted[0]++;
+        });
+        personCache.invalidateAll(ids);
+        LOGGER.info("{} of {} users deleted from database", deleted[0], ids.size());
     }
 }
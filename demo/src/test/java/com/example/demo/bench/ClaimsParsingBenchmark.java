@@ -0,0 +1,96 @@
+package com.example.demo.bench;
+
+import com.example.demo.config.JwtConfig;
+import com.example.demo.config.TokenClaimsArgumentResolver;
+import com.example.demo.dtos.TokenClaims;
+import com.example.demo.services.JwtService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Per-request cost of reading the caller's claims in the controllers, before and after the
+ * TokenClaims argument resolver:
+ * <ul>
+ *     <li>before: every check re-parsed the Authorization header (substring, SignedJWT.parse,
+ *     getJWTClaimsSet); PersonController.getPerson did this for the role and again for the id</li>
+ *     <li>after: the first TokenClaims parameter parses once, later ones hit the request attribute</li>
+ * </ul>
+ * Plain main, run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.example.demo.bench.ClaimsParsingBenchmark -Dexec.classpathScope=test}.
+ */
+public class ClaimsParsingBenchmark {
+
+    private static final int ITERATIONS = 2_000_000;
+    // claim lookups per request, e.g. role check + user check + one more
+    private static final int LOOKUPS = 3;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        String authHeader = "Bearer " + token();
+        JwtConfig.JwtTokenParser parser = new JwtConfig().jwtTokenParser();
+
+        for (int round = 0; round < 3; round++) {
+            long before = measure(() -> {
+                for (int i = 0; i < LOOKUPS; i++) {
+                    JWTClaimsSet claims = parser.parse(authHeader.substring(7)).getJWTClaimsSet();
+                    sink += ((String) claims.getClaim("scope")).length();
+                }
+            });
+            long after = measure(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest();
+                request.addHeader("Authorization", authHeader);
+                ServletWebRequest webRequest = new ServletWebRequest(request);
+                TokenClaimsArgumentResolver resolver = new TokenClaimsArgumentResolver(new JwtService(parser, request));
+                for (int i = 0; i < LOOKUPS; i++) {
+                    TokenClaims claims = resolver.resolveArgument(null, null, webRequest, null);
+                    sink += claims.scope().length();
+                }
+            });
+            System.out.printf("round %d: before %,d ns/request, after %,d ns/request (%d claim lookups per request)%n",
+                    round + 1, before, after, LOOKUPS);
+        }
+        System.out.println(sink == 42 ? "" : "done");
+    }
+
+    private interface Request {
+        void run() throws Exception;
+    }
+
+    private static long measure(Request request) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static String token() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        // same claims as auth's AuthController.token
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .jwtID(UUID.randomUUID().toString())
+                .issuer("self")
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + 300_000))
+                .subject("benchmark")
+                .claim("scope", "ROLE_USER")
+                .claim("userId", UUID.randomUUID().toString())
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+        jwt.sign(new RSASSASigner(keyPair.getPrivate()));
+        return jwt.serialize();
+    }
+}
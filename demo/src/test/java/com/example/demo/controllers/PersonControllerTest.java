@@ -0,0 +1,176 @@
+package com.example.demo.controllers;
+
+import com.example.demo.config.TokenClaimsArgumentResolver;
+import com.example.demo.dtos.PersonDTO;
+import com.example.demo.dtos.PersonDetailsDTO;
+import com.example.demo.dtos.PersonPage;
+import com.example.demo.dtos.TokenClaims;
+import com.example.demo.handlers.RestExceptionHandler;
+import com.example.demo.services.DashboardService;
+import com.example.demo.services.JwtService;
+import com.example.demo.services.PersonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PersonControllerTest {
+
+    private static final String ADMIN_TOKEN = "Bearer admin";
+    private static final String CLIENT_TOKEN = "Bearer client";
+    private static final int BATCH_MAX_SIZE = 3;
+
+    private final PersonService personService = mock(PersonService.class);
+    private final JwtService jwtService = mock(JwtService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(jwtService.getClaims(ADMIN_TOKEN)).thenReturn(new TokenClaims("admin", id(100).toString(), TokenClaims.ADMIN_ROLE));
+        when(jwtService.getClaims(CLIENT_TOKEN)).thenReturn(new TokenClaims("client", id(101).toString(), "ROLE_CLIENT"));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PersonController(personService, mock(DashboardService.class), BATCH_MAX_SIZE))
+                .setCustomArgumentResolvers(new TokenClaimsArgumentResolver(jwtService))
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void pageIsAPlainListWithTheNextCursorInAHeader() throws Exception {
+        when(personService.findPersons(id(0), 2, null, null, null))
+                .thenReturn(new PersonPage<>(List.of(person(1), person(2)), id(2)));
+
+        mockMvc.perform(as(ADMIN_TOKEN, get("/people").param("after", id(0).toString()).param("limit", "2")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PersonController.NEXT_CURSOR_HEADER, id(2).toString()))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(id(1).toString()))
+                .andExpect(jsonPath("$[1].id").value(id(2).toString()));
+    }
+
+    @Test
+    void lastPageHasNoCursorHeader() throws Exception {
+        when(personService.findPersons(id(2), null, "Jo", 18, 30))
+                .thenReturn(new PersonPage<>(List.of(person(3)), null));
+
+        mockMvc.perform(as(ADMIN_TOKEN, get("/people").param("after", id(2).toString())
+                        .param("namePrefix", "Jo").param("minAge", "18").param("maxAge", "30")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PersonController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void pagingRequiresTheAdminRole() throws Exception {
+        mockMvc.perform(as(CLIENT_TOKEN, get("/people")))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(personService);
+    }
+
+    @Test
+    void invalidPageParametersAreRejected() throws Exception {
+        mockMvc.perform(as(ADMIN_TOKEN, get("/people").param("minAge", "40").param("maxAge", "30")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(as(ADMIN_TOKEN, get("/people").param("after", "not-a-uuid")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(as(ADMIN_TOKEN, get("/people").param("fields", "name,password")))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(personService);
+    }
+
+    @Test
+    void batchIsKeyedByIdInRequestOrder() throws Exception {
+        Map<UUID, PersonDetailsDTO> found = new LinkedHashMap<>();
+        found.put(id(2), new PersonDetailsDTO(id(2), "person 2", "address 2", 22));
+        found.put(id(1), new PersonDetailsDTO(id(1), "person 1", "address 1", 21));
+        when(personService.findPersonsByIds(List.of(id(2), id(9), id(1)))).thenReturn(found);
+
+        mockMvc.perform(as(ADMIN_TOKEN, post("/people/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(id(2), id(9), id(1)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$['" + id(2) + "'].name").value("person 2"))
+                .andExpect(jsonPath("$['" + id(1) + "'].age").value(21));
+    }
+
+    @Test
+    void batchAboveTheLimitIsRejected() throws Exception {
+        mockMvc.perform(as(ADMIN_TOKEN, post("/people/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(id(1), id(2), id(3), id(4)))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Batch too large"));
+
+        verifyNoInteractions(personService);
+    }
+
+    @Test
+    void batchWithANullIdIsRejected() throws Exception {
+        mockMvc.perform(as(ADMIN_TOKEN, post("/people/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"" + id(1) + "\", null]")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid batch"));
+
+        verifyNoInteractions(personService);
+    }
+
+    @Test
+    void batchRequiresTheAdminRole() throws Exception {
+        mockMvc.perform(as(CLIENT_TOKEN, post("/people/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(id(1)))))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(personService);
+    }
+
+    @Test
+    void batchAtTheLimitIsAccepted() throws Exception {
+        when(personService.findPersonsByIds(any())).thenReturn(Map.of());
+
+        mockMvc.perform(as(ADMIN_TOKEN, post("/people/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(id(1), id(2), id(3)))))
+                .andExpect(status().isOk());
+
+        verify(personService).findPersonsByIds(List.of(id(1), id(2), id(3)));
+    }
+
+    private static MockHttpServletRequestBuilder as(String token, MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, token);
+    }
+
+    private static UUID id(int i) {
+        return new UUID(0, i);
+    }
+
+    private static PersonDTO person(int i) {
+        return new PersonDTO(id(i), "person " + i, 20 + i);
+    }
+
+    private static String json(UUID... ids) {
+        StringBuilder json = new StringBuilder("[");
+        for (UUID id : ids) {
+            json.append(json.length() > 1 ? "," : "").append('"').append(id).append('"');
+        }
+        return json.append(']').toString();
+    }
+}
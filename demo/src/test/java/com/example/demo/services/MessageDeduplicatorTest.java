@@ -0,0 +1,50 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageDeduplicatorTest {
+
+    @Test
+    void onlyMarkedMessagesCountAsApplied() {
+        MessageDeduplicator deduplicator = new MessageDeduplicator(10);
+
+        assertThat(deduplicator.isApplied("m1")).isFalse();
+        // checking does not record: a message whose write fails is applied again on redelivery
+        assertThat(deduplicator.isApplied("m1")).isFalse();
+
+        deduplicator.markApplied(List.of("m1", "m2"));
+
+        assertThat(deduplicator.isApplied("m1")).isTrue();
+        assertThat(deduplicator.isApplied("m2")).isTrue();
+        assertThat(deduplicator.isApplied("m3")).isFalse();
+    }
+
+    @Test
+    void messagesWithoutAnIdAreNeverDeduplicated() {
+        MessageDeduplicator deduplicator = new MessageDeduplicator(10);
+
+        deduplicator.markApplied(Arrays.asList(null, "m1"));
+
+        assertThat(deduplicator.isApplied(null)).isFalse();
+        assertThat(deduplicator.isApplied("m1")).isTrue();
+    }
+
+    @Test
+    void oldestIdsAreForgottenBeyondTheBound() {
+        MessageDeduplicator deduplicator = new MessageDeduplicator(2);
+
+        deduplicator.markApplied(List.of("m1", "m2"));
+        // a lookup does not refresh an id, eviction follows the order messages were applied in
+        assertThat(deduplicator.isApplied("m1")).isTrue();
+        deduplicator.markApplied(List.of("m3"));
+
+        assertThat(deduplicator.isApplied("m1")).isFalse();
+        assertThat(deduplicator.isApplied("m2")).isTrue();
+        assertThat(deduplicator.isApplied("m3")).isTrue();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.PersonDTO;
+import com.example.demo.dtos.PersonFieldsDTO;
+import com.example.demo.dtos.PersonPage;
+import com.example.demo.entities.Person;
+import com.example.demo.repositories.PersonRepository;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor.SpecificationFluentQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keyset page boundaries of GET /people: limit + 1 rows are fetched, and the cursor is the id of
+ * the last row returned, present only when the extra row showed that another page exists.
+ */
+class PersonServiceTest {
+
+    private static final int DEFAULT_LIMIT = 2;
+    private static final int MAX_LIMIT = 3;
+
+    private final PersonRepository personRepository = mock(PersonRepository.class);
+    @SuppressWarnings("unchecked")
+    private final SpecificationFluentQuery<Person> query = mock(SpecificationFluentQuery.class);
+    private final PersonService personService = new PersonService(personRepository, mock(PersonCache.class),
+            mock(PersonStatistics.class), mock(JdbcTemplate.class), mock(DeviceServiceClient.class),
+            JsonMapper.builder().build(), DEFAULT_LIMIT, MAX_LIMIT);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(query.sortBy(any(Sort.class))).thenReturn(query);
+        when(query.limit(anyInt())).thenReturn(query);
+        when(personRepository.findBy(any(Specification.class), any())).thenAnswer(invocation ->
+                invocation.<Function<SpecificationFluentQuery<Person>, Object>>getArgument(1).apply(query));
+    }
+
+    @Test
+    void extraRowMeansAnotherPageStartingAfterTheLastReturnedId() {
+        when(query.all()).thenReturn(people(3));
+
+        PersonPage<PersonDTO> page = personService.findPersons(null, null, null, null, null);
+
+        verify(query).limit(DEFAULT_LIMIT + 1);
+        verify(query).sortBy(Sort.by("id"));
+        assertThat(page.people()).extracting(PersonDTO::getId).containsExactly(id(1), id(2));
+        assertThat(page.nextCursor()).isEqualTo(id(2));
+    }
+
+    @Test
+    void pageWithoutTheExtraRowIsTheLast() {
+        when(query.all()).thenReturn(people(2));
+
+        PersonPage<PersonDTO> page = personService.findPersons(id(0), 2, null, null, null);
+
+        assertThat(page.people()).extracting(PersonDTO::getId).containsExactly(id(1), id(2));
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void emptyPageHasNoCursor() {
+        when(query.all()).thenReturn(List.of());
+
+        PersonPage<PersonDTO> page = personService.findPersons(id(9), null, "Zz", 10, 20);
+
+        assertThat(page.people()).isEmpty();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void limitIsCappedAtTheMaximum() {
+        when(query.all()).thenReturn(people(MAX_LIMIT + 1));
+
+        PersonPage<PersonDTO> page = personService.findPersons(null, 1000, null, null, null);
+
+        verify(query).limit(MAX_LIMIT + 1);
+        assertThat(page.people()).hasSize(MAX_LIMIT);
+        assertThat(page.nextCursor()).isEqualTo(id(MAX_LIMIT));
+    }
+
+    @Test
+    void fieldPagesAlwaysSelectTheIdForTheCursor() {
+        List<Tuple> rows = IntStream.rangeClosed(1, DEFAULT_LIMIT + 1).mapToObj(i -> idTuple(id(i))).toList();
+        when(personRepository.findFields(any(), any(), anyInt())).thenReturn(rows);
+
+        PersonPage<PersonFieldsDTO> page = personService.findPersonFields(null, null, null, null, null, Set.of("name"));
+
+        verify(personRepository).findFields(any(), eq(Set.of("id", "name")), eq(DEFAULT_LIMIT + 1));
+        assertThat(page.people()).extracting(PersonFieldsDTO::getId).containsExactly(id(1), id(2));
+        assertThat(page.nextCursor()).isEqualTo(id(2));
+    }
+
+    private static UUID id(int i) {
+        return new UUID(0, i);
+    }
+
+    private static List<Person> people(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new Person(id(i), "person " + i, "address " + i, 20 + i))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Tuple idTuple(UUID id) {
+        TupleElement<UUID> element = mock(TupleElement.class);
+        when(element.getAlias()).thenReturn("id");
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.getElements()).thenReturn(List.<TupleElement<?>>of(element));
+        when(tuple.get(element)).thenReturn(id);
+        return tuple;
+    }
+}
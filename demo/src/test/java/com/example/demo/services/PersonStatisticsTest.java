@@ -0,0 +1,98 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.PersonStatisticsDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PersonStatisticsTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PersonStatistics statistics = new PersonStatistics(jdbcTemplate);
+
+    @Test
+    void peopleAreCountedInTheirAgeBand() {
+        statistics.added(17);
+        statistics.added(18);
+        statistics.added(34);
+        statistics.added(90);
+        statistics.removed(34);
+
+        PersonStatisticsDTO snapshot = statistics.snapshot();
+
+        assertThat(snapshot.getTotal()).isEqualTo(3);
+        assertThat(snapshot.getByAgeBand())
+                .containsEntry("0-17", 1L)
+                .containsEntry("18-24", 1L)
+                .containsEntry("25-34", 0L)
+                .containsEntry("65+", 1L);
+        assertThat(snapshot.getReconciledAt()).isNull();
+    }
+
+    @Test
+    void writesInATransactionCountOnlyOnceItCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            statistics.added(30);
+            assertThat(statistics.snapshot().getTotal()).isZero();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(statistics.snapshot().getByAgeBand()).containsEntry("25-34", 1L);
+    }
+
+    @Test
+    void rolledBackWritesAreNeverCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            statistics.added(30);
+            statistics.removed(50);
+        } finally {
+            // rollback: afterCommit never runs
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(statistics.snapshot().getTotal()).isZero();
+    }
+
+    @Test
+    void reconcileReplacesTheCountersWithTheAggregate() throws Exception {
+        statistics.added(20);
+        statistics.added(20);
+        statistics.added(70);
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.getInt(1)).thenReturn(20, 40, 44);
+        when(rows.getLong(2)).thenReturn(5L, 2L, 1L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                handler.processRow(rows);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        statistics.reconcile();
+
+        PersonStatisticsDTO snapshot = statistics.snapshot();
+        assertThat(snapshot.getTotal()).isEqualTo(8);
+        assertThat(snapshot.getByAgeBand())
+                .containsEntry("18-24", 5L)
+                .containsEntry("35-44", 3L)
+                .containsEntry("65+", 0L);
+        assertThat(snapshot.getReconciledAt()).isNotNull();
+    }
+}
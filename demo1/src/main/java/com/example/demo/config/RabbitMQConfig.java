@@ -1,10 +1,13 @@
 package com.example.demo.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.amqp.autoconfigure.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -17,12 +20,18 @@ public class RabbitMQConfig {
 
     public static final String QUEUE_USER_CREATE = "user.queue.device-service.create";
     public static final String QUEUE_USER_DELETE = "user.queue.device-service.delete";
+    public static final String QUEUE_USER_CREATE_BATCH = "user.queue.device-service.create-batch";
+    public static final String QUEUE_USER_DELETE_BATCH = "user.queue.device-service.delete-batch";
 
     public static final String USER_EXCHANGE = "user-exchange";
     public static final String DEVICE_EXCHANGE = "device-exchange";
 
+    public static final String BATCH_CONTAINER_FACTORY = "batchContainerFactory";
+
     public static final String ROUTING_KEY_USER_CREATED = "user.created";
     public static final String ROUTING_KEY_USER_DELETED = "user.deleted";
+    public static final String ROUTING_KEY_USER_CREATED_BATCH = "user.created.batch";
+    public static final String ROUTING_KEY_USER_DELETED_BATCH = "user.deleted.batch";
     public static final String ROUTING_KEY_DEVICE_CREATED = "device.created";
     public static final String ROUTING_KEY_DEVICE_ASSIGNED = "device.assigned";
     public static final String ROUTING_KEY_DEVICE_UNASSIGNED = "device.unassigned";
@@ -52,6 +61,16 @@ public class RabbitMQConfig {
         return new Queue(QUEUE_USER_DELETE, true);
     }
 
+    @Bean
+    public Queue userCreateBatchQueue() {
+        return new Queue(QUEUE_USER_CREATE_BATCH, true);
+    }
+
+    @Bean
+    public Queue userDeleteBatchQueue() {
+        return new Queue(QUEUE_USER_DELETE_BATCH, true);
+    }
+
     @Bean
     public TopicExchange userExchange() {
         return new TopicExchange(USER_EXCHANGE);
@@ -72,6 +91,36 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(userDeleteQueue).to(userExchange).with(ROUTING_KEY_USER_DELETED);
     }
 
+    @Bean
+    public Binding bindingUserCreatedBatch(Queue userCreateBatchQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userCreateBatchQueue).to(userExchange).with(ROUTING_KEY_USER_CREATED_BATCH);
+    }
+
+    @Bean
+    public Binding bindingUserDeletedBatch(Queue userDeleteBatchQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userDeleteBatchQueue).to(userExchange).with(ROUTING_KEY_USER_DELETED_BATCH);
+    }
+
+    /**
+     * Listener containers that hand a listener up to {@code batchSize} messages at once, or whatever
+     * arrived within {@code batchReceiveTimeout} ms; the whole batch is acked together when the
+     * listener returns. Everything else (converter, ack mode, executor) comes from spring.rabbitmq.listener.simple.
+     */
+    @Bean(name = BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                      ConnectionFactory connectionFactory,
+                                                                      @Value("${user-sync.batch.size}") int batchSize,
+                                                                      @Value("${user-sync.batch.receive-timeout-ms}") long batchReceiveTimeout) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setBatchReceiveTimeout(batchReceiveTimeout);
+        factory.setPrefetchCount(batchSize);
+        return factory;
+    }
+
     @Bean
     public MessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -1,23 +1,58 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * gateway: nginx checks every request with auth_request against the auth service and this
+     * service trusts the token it forwards.
+     * local: the JWT signature and expiry are verified here against auth's JWK set (JwtConfig), so
+     * nginx can drop the auth subrequest. Opaque reference tokens and revocation need the auth
+     * service and cannot be honoured in this mode, so it refuses to start unless both are switched
+     * off with jwt.reference-tokens.enabled=false and jwt.revocation.enabled=false.
+     */
+    @Value("${jwt.verification}")
+    private String verification;
+
+    @Value("${jwt.reference-tokens.enabled}")
+    private boolean referenceTokensEnabled;
+
+    @Value("${jwt.revocation.enabled}")
+    private boolean revocationEnabled;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        http
-            .authorizeHttpRequests(authz -> authz
-                .requestMatchers("/**").permitAll()
-            )
-            .csrf(AbstractHttpConfigurer::disable);
+        if ("local".equalsIgnoreCase(verification)) {
+            if (referenceTokensEnabled || revocationEnabled) {
+                throw new IllegalStateException("jwt.verification=local only checks JWT signatures and expiry; " +
+                        "it would reject reference tokens and accept revoked tokens. Keep jwt.verification=gateway " +
+                        "or set jwt.reference-tokens.enabled=false and jwt.revocation.enabled=false");
+            }
+            http
+                .authorizeHttpRequests(authz -> authz
+                    .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/api-docs/**", "/actuator/**").permitAll()
+                    .anyRequest().authenticated()
+                )
+                .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        } else {
+            http
+                .authorizeHttpRequests(authz -> authz
+                    .requestMatchers("/**").permitAll()
+                );
+        }
+        http.csrf(AbstractHttpConfigurer::disable);
         return http.build();
     }
 }
@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import com.example.demo.dtos.TokenClaims;
+import com.example.demo.services.JwtService;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.text.ParseException;
+
+/**
+ * Resolves {@link TokenClaims} controller parameters. The token is parsed on first use and the
+ * result kept as a request attribute, so a request parses its token at most once. When the
+ * token was already verified in-process (jwt.verification=local) the claims come straight from
+ * the authenticated {@link Jwt}.
+ */
+public class TokenClaimsArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String ATTRIBUTE = TokenClaims.class.getName();
+
+    private final JwtService jwtService;
+
+    public TokenClaimsArgumentResolver(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return TokenClaims.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public TokenClaims resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                       NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        TokenClaims claims = (TokenClaims) webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (claims != null) {
+            return claims;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Jwt jwt) {
+            claims = new TokenClaims(jwt.getSubject(), jwt.getClaimAsString("userId"), jwt.getClaimAsString("scope"));
+            webRequest.setAttribute(ATTRIBUTE, claims, RequestAttributes.SCOPE_REQUEST);
+            return claims;
+        }
+        String authHeader = webRequest.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Missing bearer token");
+        }
+        try {
+            claims = jwtService.getClaims(authHeader);
+        } catch (ParseException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Token");
+        }
+        webRequest.setAttribute(ATTRIBUTE, claims, RequestAttributes.SCOPE_REQUEST);
+        return claims;
+    }
+}
@@ -2,21 +2,27 @@ package com.example.demo.controllers;
 
 import com.example.demo.dtos.DeviceDTO;
 import com.example.demo.dtos.DeviceDetailsDTO;
+import com.example.demo.dtos.TokenClaims;
 import com.example.demo.entities.Device;
 import com.example.demo.entities.UserDeviceMapping;
+import com.example.demo.handlers.exceptions.model.CustomException;
 import com.example.demo.services.DeviceService;
-import com.example.demo.services.JwtService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
 import java.net.URI;
-import java.text.ParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -24,34 +30,79 @@ import java.util.UUID;
 @Validated
 public class DeviceController {
 
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+
     private final DeviceService deviceService;
-    private final JwtService jwtService;
+    private final int batchMaxSize;
 
-    public DeviceController(DeviceService deviceService, JwtService jwtService) {
+    public DeviceController(DeviceService deviceService, @Value("${devices.batch.max-size}") int batchMaxSize) {
         this.deviceService = deviceService;
-        this.jwtService = jwtService;
+        this.batchMaxSize = batchMaxSize;
     }
 
-    private void checkAdminRole(String authHeader) {
-        try {
-            String role = jwtService.getRoleFromToken(authHeader);
-            if (role == null || !role.equals("ROLE_ADMIN")) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Admin role required");
-            }
-        } catch (ParseException e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Token");
+    private void checkAdminRole(TokenClaims claims) {
+        if (!claims.isAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Admin role required");
+        }
+    }
+
+    /**
+     * Admins may look up any users; everyone else only themselves, which is what user-service sends
+     * when a client expands the devices of its own person.
+     */
+    private void checkAdminOrSelf(TokenClaims claims, List<UUID> userIds) {
+        if (claims.isAdmin()) {
+            return;
+        }
+        if (claims.userId() == null || !userIds.stream().allMatch(id -> claims.userId().equals(id.toString()))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: You cannot fetch other clients' data");
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<DeviceDTO>> getDevices(@RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
+    public ResponseEntity<List<DeviceDTO>> getDevices(TokenClaims claims) {
+        checkAdminRole(claims);
         return ResponseEntity.ok(deviceService.findDevices());
     }
 
+    /**
+     * Streams all devices as NDJSON. The response is written on an async thread, so the request
+     * thread is released; X-Accel-Buffering stops nginx from spooling the whole export to disk.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDevices(TokenClaims claims) {
+        checkAdminRole(claims);
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, EXPORT_BUFFER_BYTES);
+            deviceService.exportDevices(buffered);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("X-Accel-Buffering", "no")
+                .body(body);
+    }
+
+    /**
+     * Looks up many devices with one query, for callers that would otherwise hit /devices/{id} once
+     * per id. The result is keyed by id in request order; unknown ids are left out.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<UUID, DeviceDetailsDTO>> getDevicesBatch(@RequestBody List<UUID> ids, TokenClaims claims) {
+        checkAdminRole(claims);
+        if (ids.size() > batchMaxSize) {
+            throw new CustomException("Batch too large", HttpStatus.BAD_REQUEST, Device.class.getSimpleName(),
+                    List.of("at most " + batchMaxSize + " ids can be looked up per request"));
+        }
+        if (ids.contains(null)) {
+            throw new CustomException("Invalid batch", HttpStatus.BAD_REQUEST, Device.class.getSimpleName(),
+                    List.of("ids must not be null"));
+        }
+        return ResponseEntity.ok(deviceService.findDevicesByIds(ids));
+    }
+
     @PostMapping
-    public ResponseEntity<Void> create(@Valid @RequestBody DeviceDetailsDTO device, @RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
+    public ResponseEntity<Void> create(@Valid @RequestBody DeviceDetailsDTO device, TokenClaims claims) {
+        checkAdminRole(claims);
         UUID id = deviceService.insert(device);
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
@@ -67,8 +118,8 @@ public class DeviceController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteDevice(@PathVariable UUID id, @RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
+    public ResponseEntity<Void> deleteDevice(@PathVariable UUID id, TokenClaims claims) {
+        checkAdminRole(claims);
         boolean deleted = deviceService.delete(id);
         if (deleted)
             return ResponseEntity.status(204).build();
@@ -77,8 +128,8 @@ public class DeviceController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<DeviceDetailsDTO> updateDevice(@Valid @RequestBody DeviceDetailsDTO deviceDetailsDTO, @PathVariable UUID id, @RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
+    public ResponseEntity<DeviceDetailsDTO> updateDevice(@Valid @RequestBody DeviceDetailsDTO deviceDetailsDTO, @PathVariable UUID id, TokenClaims claims) {
+        checkAdminRole(claims);
         DeviceDetailsDTO deviceDTO = deviceService.update(deviceDetailsDTO);
         if (id.equals(deviceDTO.getId())) {
             return ResponseEntity.status(204).body(deviceDTO);
@@ -93,28 +144,46 @@ public class DeviceController {
     }
 
     @PostMapping("/mapping")
-    public ResponseEntity<Void> assignDeviceToUser(@RequestParam UUID userId, @RequestParam UUID deviceId, @RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
+    public ResponseEntity<Void> assignDeviceToUser(@RequestParam UUID userId, @RequestParam UUID deviceId, TokenClaims claims) {
+        checkAdminRole(claims);
         deviceService.assignDeviceToUser(userId, deviceId);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
     @DeleteMapping("/mapping")
-    public ResponseEntity<Void> unassignDeviceFromUser(@RequestParam UUID userId, @RequestParam UUID deviceId, @RequestHeader("Authorization") String authHeader) {
-        checkAdminRole(authHeader);
+    public ResponseEntity<Void> unassignDeviceFromUser(@RequestParam UUID userId, @RequestParam UUID deviceId, TokenClaims claims) {
+        checkAdminRole(claims);
         deviceService.unassignDeviceFromUser(userId, deviceId);
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<DeviceDTO>> getDevicesForUser(@PathVariable UUID userId){//, @RequestHeader("Authorization") String authHeader) {
-//        checkAdminRole(authHeader);
+    public ResponseEntity<List<DeviceDTO>> getDevicesForUser(@PathVariable UUID userId){//, TokenClaims claims) {
+//        checkAdminRole(claims);
         return ResponseEntity.ok(deviceService.findDevicesByUserId(userId));
     }
 
+    /**
+     * Devices of many users in one call, e.g. for user-service expanding a page of people. Every
+     * requested user is present in the result, in request order. Non-admins may only ask for themselves.
+     */
+    @PostMapping("/user/batch")
+    public ResponseEntity<Map<UUID, List<DeviceDTO>>> getDevicesForUsers(@RequestBody List<UUID> userIds, TokenClaims claims) {
+        if (userIds.size() > batchMaxSize) {
+            throw new CustomException("Batch too large", HttpStatus.BAD_REQUEST, Device.class.getSimpleName(),
+                    List.of("at most " + batchMaxSize + " users can be looked up per request"));
+        }
+        if (userIds.contains(null)) {
+            throw new CustomException("Invalid batch", HttpStatus.BAD_REQUEST, Device.class.getSimpleName(),
+                    List.of("user ids must not be null"));
+        }
+        checkAdminOrSelf(claims, userIds);
+        return ResponseEntity.ok(deviceService.findDevicesByUserIds(userIds));
+    }
+
     @GetMapping("/user-mapping/{deviceId}")
-    public ResponseEntity<String> getUserByDevice(@PathVariable UUID deviceId){//, @RequestHeader("Authorization") String authHeader) {
-//        checkAdminRole(authHeader);
+    public ResponseEntity<String> getUserByDevice(@PathVariable UUID deviceId){//, TokenClaims claims) {
+//        checkAdminRole(claims);
         UserDeviceMapping udm = deviceService.findAssignDevice(deviceId);
         try {
             return ResponseEntity.ok().body(udm.getUserId().toString());
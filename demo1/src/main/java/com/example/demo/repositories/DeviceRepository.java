@@ -1,13 +1,19 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dtos.DeviceDTO;
 import com.example.demo.entities.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface DeviceRepository extends JpaRepository<Device, UUID> {
 
@@ -25,4 +31,10 @@ public interface DeviceRepository extends JpaRepository<Device, UUID> {
             "AND p.consumption >= 200  ")
     Optional<Device> findHighConsumption(@Param("name") String name);
 
+    // DTO projection, so nothing accumulates in the persistence context while exporting; must run in a
+    // transaction so the PostgreSQL driver streams rows by fetch size instead of loading them all
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.demo.dtos.DeviceDTO(d.id, d.name, d.consumption) FROM Device d")
+    Stream<DeviceDTO> streamAllForExport();
+
 }
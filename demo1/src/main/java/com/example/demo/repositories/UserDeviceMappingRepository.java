@@ -1,11 +1,13 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dtos.DeviceDTO;
 import com.example.demo.entities.Device;
 import com.example.demo.entities.UserDeviceMapping;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +15,11 @@ import java.util.UUID;
 public interface UserDeviceMappingRepository extends JpaRepository<UserDeviceMapping, UUID> {
     Optional<UserDeviceMapping> findByUserIdAndDevice_Id(UUID userId, UUID deviceId);
     List<UserDeviceMapping> findByUserId(UUID userId);
+    @Query("SELECT new com.example.demo.dtos.DeviceDTO(d.id, d.name, d.consumption) " +
+            "FROM UserDeviceMapping m JOIN m.device d WHERE m.userId = :userId")
+    List<DeviceDTO> findDeviceDTOsByUserId(@Param("userId") UUID userId);
+    @Query("SELECT m FROM UserDeviceMapping m JOIN FETCH m.device WHERE m.userId IN :userIds")
+    List<UserDeviceMapping> findWithDeviceByUserIdIn(@Param("userIds") Collection<UUID> userIds);
     @Query("SELECT m from UserDeviceMapping m " +
             "where m.device.id = :id")
     UserDeviceMapping findByDevice(@Param("id")UUID id);
@@ -10,6 +10,8 @@ import com.example.demo.entities.UserDeviceMapping;
 import com.example.demo.handlers.exceptions.model.ResourceNotFoundException;
 import com.example.demo.repositories.DeviceRepository;
 import com.example.demo.repositories.UserDeviceMappingRepository;
+import com.example.demo.utils.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.transaction.Transactional;
 import org.apache.catalina.User;
 import org.jspecify.annotations.Nullable;
@@ -18,11 +20,24 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class DeviceService {
@@ -30,12 +45,21 @@ public class DeviceService {
     private final DeviceRepository deviceRepository;
     private final UserDeviceMappingRepository mappingRepository;
     private final DevicePublisher devicePublisher;
+    private final ObjectWriter exportWriter;
+    // concurrent identical reads share one query; nothing is kept once it completes, and writes
+    // detach running queries (see forgetLoads) so later reads see the write
+    private final SingleFlight<UUID, DeviceDetailsDTO> deviceLoads;
+    private final SingleFlight<UUID, List<DeviceDTO>> userDeviceLoads;
 
     @Autowired
-    public DeviceService(DeviceRepository deviceRepository, UserDeviceMappingRepository mappingRepository, DevicePublisher devicePublisher) {
+    public DeviceService(DeviceRepository deviceRepository, UserDeviceMappingRepository mappingRepository, DevicePublisher devicePublisher,
+                         JsonMapper jsonMapper, MeterRegistry meterRegistry) {
         this.deviceRepository = deviceRepository;
         this.mappingRepository = mappingRepository;
         this.devicePublisher = devicePublisher;
+        this.exportWriter = jsonMapper.writerFor(DeviceDTO.class);
+        this.deviceLoads = new SingleFlight<>("device.by-id", meterRegistry);
+        this.userDeviceLoads = new SingleFlight<>("devices.by-user", meterRegistry);
     }
 
     @Transactional
@@ -46,7 +70,67 @@ public class DeviceService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Writes every device as one JSON object per line. Rows come from a database cursor and go
+     * straight to {@code out}, whose blocking writes hold the cursor back when the client reads slowly.
+     *
+     * @return the number of devices written
+     */
+    @Transactional
+    public long exportDevices(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<DeviceDTO> devices = deviceRepository.streamAllForExport()) {
+            Iterator<DeviceDTO> iterator = devices.iterator();
+            while (iterator.hasNext()) {
+                out.write(exportWriter.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                count++;
+            }
+        }
+        out.flush();
+        LOGGER.debug("Exported {} devices", count);
+        return count;
+    }
+
+    /**
+     * Resolves all ids with a single IN query; ids that do not exist are absent from the map.
+     */
+    public Map<UUID, DeviceDetailsDTO> findDevicesByIds(Collection<UUID> ids) {
+        Map<UUID, DeviceDetailsDTO> found = new LinkedHashMap<>();
+        for (Device device : deviceRepository.findAllById(new LinkedHashSet<>(ids))) {
+            found.put(device.getId(), DeviceBuilder.toDeviceDetailsDTO(device));
+        }
+        Map<UUID, DeviceDetailsDTO> result = new LinkedHashMap<>();
+        for (UUID id : ids) {
+            DeviceDetailsDTO device = found.get(id);
+            if (device != null) {
+                result.put(id, device);
+            }
+        }
+        return result;
+    }
+
     public DeviceDetailsDTO findDevicesById(UUID id) {
+        return deviceLoads.execute(id, () -> loadDeviceById(id));
+    }
+
+    /**
+     * Detaches in-flight reads affected by a write, now and again after commit: a read starting in
+     * between still sees the old rows, and its result must not be shared past the commit.
+     */
+    private void forgetLoads(Runnable forget) {
+        forget.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget.run();
+                }
+            });
+        }
+    }
+
+    private DeviceDetailsDTO loadDeviceById(UUID id) {
         Optional<Device> prosumerOptional = deviceRepository.findById(id);
         if (prosumerOptional.isEmpty()) {
             LOGGER.error("Device with id {} was not found in db", id);
@@ -74,6 +158,11 @@ public class DeviceService {
 
     @Transactional
     public DeviceDetailsDTO update(DeviceDetailsDTO deviceDTO) {
+        // name and consumption also appear in the owner's device list
+        forgetLoads(() -> {
+            deviceLoads.forget(deviceDTO.getId());
+            userDeviceLoads.forgetAll();
+        });
         Device device = deviceRepository.findById(deviceDTO.getId())
                 .map(existingDevice -> {
                     LOGGER.debug("Device with id {} will be updated in db", deviceDTO.getId());
@@ -93,6 +182,10 @@ public class DeviceService {
     @Transactional
     public boolean delete(UUID id) {
         if (deviceRepository.existsById(id)) {
+            forgetLoads(() -> {
+                deviceLoads.forget(id);
+                userDeviceLoads.forgetAll();
+            });
 
             UUID userId = null;
             try {
@@ -126,6 +219,7 @@ public class DeviceService {
                     return new ResourceNotFoundException(Device.class.getSimpleName() + " with id: " + deviceId);
                 });
 
+        forgetLoads(() -> userDeviceLoads.forget(userId));
         UserDeviceMapping newMapping = new UserDeviceMapping(userId, device);
         try {
             mappingRepository.save(newMapping);
@@ -148,6 +242,7 @@ public class DeviceService {
                     return new ResourceNotFoundException("Mapping not found for this user and device");
                 });
 
+        forgetLoads(() -> userDeviceLoads.forget(userId));
         mappingRepository.delete(mapping);
         LOGGER.debug("Unassigned device {} from user {}", deviceId, userId);
         
@@ -155,14 +250,28 @@ public class DeviceService {
         devicePublisher.unassignDevice(deviceId);
     }
 
-    @Transactional
+    /**
+     * Not transactional: requests waiting on an identical in-flight read must not hold a
+     * connection, so the devices are fetched as DTOs in one query instead of lazily.
+     */
     public List<DeviceDTO> findDevicesByUserId(UUID userId) {
-        List<UserDeviceMapping> mappings = mappingRepository.findByUserId(userId);
+        return userDeviceLoads.execute(userId, () -> List.copyOf(mappingRepository.findDeviceDTOsByUserId(userId)));
+    }
 
-        return mappings.stream()
-                .map(UserDeviceMapping::getDevice)
-                .map(DeviceBuilder::toDeviceDTO)
-                .collect(Collectors.toList());
+    /**
+     * Devices of many users with a single IN query, keyed by user id in request order; users
+     * without devices map to an empty list.
+     */
+    public Map<UUID, List<DeviceDTO>> findDevicesByUserIds(Collection<UUID> userIds) {
+        Map<UUID, List<DeviceDTO>> result = new LinkedHashMap<>();
+        userIds.forEach(userId -> result.put(userId, new ArrayList<>()));
+        if (result.isEmpty()) {
+            return result;
+        }
+        for (UserDeviceMapping mapping : mappingRepository.findWithDeviceByUserIdIn(result.keySet())) {
+            result.get(mapping.getUserId()).add(DeviceBuilder.toDeviceDTO(mapping.getDevice()));
+        }
+        return result;
     }
 
     public @Nullable UserDeviceMapping findAssignDevice(UUID deviceId) {
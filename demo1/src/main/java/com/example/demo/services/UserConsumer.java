@@ -1,50 +1,76 @@
 package com.example.demo.services;
 
 import com.example.demo.config.RabbitMQConfig;
+import com.example.demo.dtos.PersonSyncBatchDTO;
 import com.example.demo.dtos.PersonSyncDTO;
-import com.example.demo.entities.User;
-import com.example.demo.repositories.UserRepository;
+import com.example.demo.dtos.UserDeletionBatchDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Mirrors user ids from auth. Single events arrive through the batch container factory, so a
+ * burst of signups or deletions becomes one JDBC batch or one DELETE per listener call.
+ * <p>
+ * Failures propagate, so the container rejects and requeues the whole delivery rather than acking
+ * it; applying it again is harmless since inserts skip existing ids and deletes skip missing ones.
+ */
 @Service
 public class UserConsumer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserConsumer.class);
-    private final UserRepository userRepository;
+    private static final String INSERT_USER = "INSERT INTO users (id) VALUES (?) ON CONFLICT (id) DO NOTHING";
+    private static final String DELETE_USERS = "DELETE FROM users WHERE id = ANY(?)";
 
-    public UserConsumer(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserConsumer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_USER_CREATE, containerFactory = RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+    public void receiveUserCreations(List<PersonSyncDTO> users) {
+        LOGGER.info("Received {} user creation events", users.size());
+        saveAll(users);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_USER_CREATE_BATCH)
+    public void receiveUserCreationBatch(PersonSyncBatchDTO batch) {
+        LOGGER.info("Received user creation batch event for {} users", batch.getPeople().size());
+        saveAll(batch.getPeople());
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_USER_DELETE, containerFactory = RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+    public void receiveUserDeletions(List<UUID> ids) {
+        LOGGER.info("Received {} user deletion events", ids.size());
+        deleteAll(ids);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_USER_DELETE_BATCH)
+    public void receiveUserDeletionBatch(UserDeletionBatchDTO batch) {
+        LOGGER.info("Received user deletion batch event for {} users", batch.getIds().size());
+        deleteAll(batch.getIds());
     }
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_USER_CREATE)
-    public void receiveUserCreation(PersonSyncDTO personSyncDTO) {
-        try {
-            LOGGER.info("Received user creation event for ID: {}", personSyncDTO.getId());
-            User user = new User(personSyncDTO.getId());
-            userRepository.save(user);
-            LOGGER.info("User ID saved to database: {}", user.getId());
-        } catch (Exception e) {
-            LOGGER.error("Error processing user creation event", e);
-        }
+    private void saveAll(List<PersonSyncDTO> users) {
+        // ids that already exist are skipped, so a redelivered batch is harmless
+        jdbcTemplate.batchUpdate(INSERT_USER, users, users.size(),
+                (ps, user) -> ps.setObject(1, user.getId()));
+        LOGGER.info("{} user IDs saved to database", users.size());
     }
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_USER_DELETE)
-    public void receiveUserDeletion(UUID id) {
-        try {
-            LOGGER.info("Received user deletion event for ID: {}", id);
-            if (userRepository.existsById(id)) {
-                userRepository.deleteById(id);
-                LOGGER.info("User ID deleted from database: {}", id);
-            } else {
-                LOGGER.warn("User with ID {} not found for deletion", id);
-            }
-        } catch (Exception e) {
-            LOGGER.error("Error processing user deletion event", e);
-        }
+    private void deleteAll(List<UUID> ids) {
+        // one statement; ids that are already gone are simply not matched
+        int deleted = jdbcTemplate.update(con -> {
+            var statement = con.prepareStatement(DELETE_USERS);
+            statement.setArray(1, con.createArrayOf("uuid", ids.toArray()));
+            return statement;
+        });
+        LOGGER.info("{} of {} user IDs deleted from database", deleted, ids.size());
     }
 }
@@ -0,0 +1,136 @@
+package com.example.demo.controllers;
+
+import com.example.demo.config.TokenClaimsArgumentResolver;
+import com.example.demo.dtos.DeviceDTO;
+import com.example.demo.dtos.DeviceDetailsDTO;
+import com.example.demo.dtos.TokenClaims;
+import com.example.demo.handlers.RestExceptionHandler;
+import com.example.demo.services.DeviceService;
+import com.example.demo.services.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DeviceControllerTest {
+
+    private static final String ADMIN_TOKEN = "Bearer admin";
+    private static final String CLIENT_TOKEN = "Bearer client";
+    private static final UUID CLIENT_ID = id(101);
+    private static final int BATCH_MAX_SIZE = 3;
+
+    private final DeviceService deviceService = mock(DeviceService.class);
+    private final JwtService jwtService = mock(JwtService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(jwtService.getClaims(ADMIN_TOKEN)).thenReturn(new TokenClaims("admin", id(100).toString(), TokenClaims.ADMIN_ROLE));
+        when(jwtService.getClaims(CLIENT_TOKEN)).thenReturn(new TokenClaims("client", CLIENT_ID.toString(), "ROLE_CLIENT"));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new DeviceController(deviceService, BATCH_MAX_SIZE))
+                .setCustomArgumentResolvers(new TokenClaimsArgumentResolver(jwtService))
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void deviceBatchIsKeyedByIdInRequestOrder() throws Exception {
+        Map<UUID, DeviceDetailsDTO> found = new LinkedHashMap<>();
+        found.put(id(2), new DeviceDetailsDTO(id(2), "meter 2", "acme", 200));
+        found.put(id(1), new DeviceDetailsDTO(id(1), "meter 1", "acme", 100));
+        when(deviceService.findDevicesByIds(List.of(id(2), id(9), id(1)))).thenReturn(found);
+
+        mockMvc.perform(post("/devices/batch").header(HttpHeaders.AUTHORIZATION, ADMIN_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(id(2), id(9), id(1))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$['" + id(2) + "'].name").value("meter 2"))
+                .andExpect(jsonPath("$['" + id(1) + "'].consumption").value(100));
+    }
+
+    @Test
+    void deviceBatchRequiresTheAdminRole() throws Exception {
+        mockMvc.perform(post("/devices/batch").header(HttpHeaders.AUTHORIZATION, CLIENT_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(id(1))))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(deviceService);
+    }
+
+    @Test
+    void deviceBatchAboveTheLimitOrWithNullIdsIsRejected() throws Exception {
+        mockMvc.perform(post("/devices/batch").header(HttpHeaders.AUTHORIZATION, ADMIN_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(id(1), id(2), id(3), id(4))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Batch too large"));
+        mockMvc.perform(post("/devices/batch").header(HttpHeaders.AUTHORIZATION, ADMIN_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content("[null]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid batch"));
+
+        verifyNoInteractions(deviceService);
+    }
+
+    @Test
+    void adminsLookUpTheDevicesOfAnyUsers() throws Exception {
+        Map<UUID, List<DeviceDTO>> devices = new LinkedHashMap<>();
+        devices.put(id(1), List.of(new DeviceDTO(id(11), "meter 11", 110)));
+        devices.put(id(2), List.of());
+        when(deviceService.findDevicesByUserIds(List.of(id(1), id(2)))).thenReturn(devices);
+
+        mockMvc.perform(post("/devices/user/batch").header(HttpHeaders.AUTHORIZATION, ADMIN_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(id(1), id(2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + id(1) + "'][0].name").value("meter 11"))
+                .andExpect(jsonPath("$['" + id(2) + "'].length()").value(0));
+    }
+
+    @Test
+    void clientsLookUpOnlyTheirOwnDevices() throws Exception {
+        when(deviceService.findDevicesByUserIds(List.of(CLIENT_ID))).thenReturn(Map.of(CLIENT_ID, List.of()));
+
+        mockMvc.perform(post("/devices/user/batch").header(HttpHeaders.AUTHORIZATION, CLIENT_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(CLIENT_ID)))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/devices/user/batch").header(HttpHeaders.AUTHORIZATION, CLIENT_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(CLIENT_ID, id(1))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void userBatchAboveTheLimitIsRejected() throws Exception {
+        mockMvc.perform(post("/devices/user/batch").header(HttpHeaders.AUTHORIZATION, ADMIN_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(id(1), id(2), id(3), id(4))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Batch too large"));
+
+        verifyNoInteractions(deviceService);
+    }
+
+    private static UUID id(int i) {
+        return new UUID(0, i);
+    }
+
+    private static String json(UUID... ids) {
+        StringBuilder json = new StringBuilder("[");
+        for (UUID id : ids) {
+            json.append(json.length() > 1 ? "," : "").append('"').append(id).append('"');
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value";
+        }));
+        waitUntil(() -> flight.inFlight() == 1);
+        Future<String> follower = executor.submit(() -> flight.execute("key", () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        waitUntil(() -> coalesced() == 1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(loads).hasValue(1);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void followersSeeTheLeadersException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+            await(release);
+            throw failure;
+        }));
+        waitUntil(() -> flight.inFlight() == 1);
+        Future<Throwable> follower = executor.submit(() -> {
+            try {
+                flight.execute("key", () -> "other");
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        });
+        waitUntil(() -> coalesced() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(failure);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void completedFlightsAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.execute("key", () -> "value" + loads.incrementAndGet());
+        String second = flight.execute("key", () -> "value" + loads.incrementAndGet());
+
+        assertThat(second).isEqualTo("value2");
+        assertThat(coalesced()).isZero();
+    }
+
+    @Test
+    void forgottenFlightIsNotJoinedAndDoesNotDetachItsSuccessor() throws Exception {
+        CountDownLatch releaseStale = new CountDownLatch(1);
+        CountDownLatch releaseFresh = new CountDownLatch(1);
+
+        Future<String> stale = executor.submit(() -> flight.execute("key", () -> {
+            await(releaseStale);
+            return "stale";
+        }));
+        waitUntil(() -> flight.inFlight() == 1);
+        flight.forget("key");
+
+        Future<String> fresh = executor.submit(() -> flight.execute("key", () -> {
+            await(releaseFresh);
+            return "fresh";
+        }));
+        waitUntil(() -> flight.inFlight() == 1);
+
+        // the stale leader finishing must leave the fresh flight registered
+        releaseStale.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+        assertThat(flight.inFlight()).isEqualTo(1);
+
+        Future<String> joiner = executor.submit(() -> flight.execute("key", () -> "own"));
+        waitUntil(() -> coalesced() == 1);
+        releaseFresh.countDown();
+
+        assertThat(fresh.get(5, TimeUnit.SECONDS)).isEqualTo("fresh");
+        assertThat(joiner.get(5, TimeUnit.SECONDS)).isEqualTo("fresh");
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void forgetAllDetachesEveryFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(() -> flight.execute("a", () -> {
+            await(release);
+            return "a";
+        }));
+        Future<String> second = executor.submit(() -> flight.execute("b", () -> {
+            await(release);
+            return "b";
+        }));
+        waitUntil(() -> flight.inFlight() == 2);
+        flight.forgetAll();
+
+        assertThat(flight.inFlight()).isZero();
+        assertThat(flight.execute("a", () -> "new a")).isEqualTo("new a");
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("singleflight.coalesced").tag("name", "test").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                fail("latch was not released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 5 seconds");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
@@ -4,7 +4,10 @@ document.addEventListener('DOMContentLoaded', initApp);
 let token = null;
 let userRole = null;
 let userId = null;
-let allUsersCache = []; // Cache for user list in assignment modal
+let nextUsersCursor = null; // X-Next-Cursor of the last /people page, null when all are loaded
+const USERS_PAGE_SIZE = 50;
+let userSearchTimer = null; // debounce for the assignment modal's user search
+let userSearchSeq = 0; // only the latest search may fill the dropdown
 
 // --- DOM ELEMENT SELECTORS ---
 // Auth
@@ -29,6 +32,7 @@ const clientDeviceListContainer = document.getElementById('client-device-list-co
 // Admin
 const adminSection = document.getElementById('admin-section');
 const adminUserListBody = document.querySelector('#admin-user-list tbody');
+const loadMoreUsersButton = document.getElementById('load-more-users-button');
 const adminDeviceListBody = document.querySelector('#admin-device-list tbody');
 
 // Modals
@@ -40,6 +44,7 @@ const deviceForm = document.getElementById('device-form');
 const deviceFormTitle = document.getElementById('device-form-title');
 const assignDeviceModal = document.getElementById('assign-device-modal');
 const assignDeviceForm = document.getElementById('assign-device-form');
+const userSearchInput = document.getElementById('user-search-input');
 const viewDeviceDetailsModal = document.getElementById('view-device-details-modal');
 
 // Chat Elements
@@ -134,11 +139,13 @@ function attachEventListeners() {
 
     // Admin: Show "Create" Modals
     document.getElementById('show-create-device-modal-button').addEventListener('click', showCreateDeviceModal);
+    loadMoreUsersButton.addEventListener('click', () => loadAllUsers(true));
 
     // Admin: Form Submissions
     userForm.addEventListener('submit', handleUserFormSubmit);
     deviceForm.addEventListener('submit', handleDeviceFormSubmit);
     assignDeviceForm.addEventListener('submit', handleAssignDeviceSubmit);
+    userSearchInput.addEventListener('input', handleUserSearchInput);
 
     // Admin: List Event Delegation (Edit, Delete, Assign)
     adminUserListBody.addEventListener('click', (e) => {
@@ -291,7 +298,6 @@ function handleLogout() {
     token = null;
     userRole = null;
     userId = null;
-    allUsersCache = [];
     localStorage.removeItem('jwt');
     localStorage.removeItem('jwt');
 
@@ -329,11 +335,9 @@ function showDashboard() {
     clientSection.classList.add('hidden');
     adminSection.classList.add('hidden');
 
-    // Load common data
-    loadMyInfo();
-
     // Load role-specific data
     if (userRole === 'ROLE_ADMIN') {
+        loadMyInfo();
         userGreeting.textContent = `Welcome, Admin!`;
         adminSection.classList.remove('hidden');
         loadAdminData();
@@ -341,7 +345,7 @@ function showDashboard() {
     } else { // ROLE_USER
         userGreeting.textContent = `Welcome, User!`;
         clientSection.classList.remove('hidden');
-        loadClientData();
+        loadClientDashboard(); // profile + devices in one request
 
         // Initialize Chat for users only
         // chat WebSocket is now opened only when the chat window is opened
@@ -365,48 +369,62 @@ function showAuthView() {
  */
 async function loadMyInfo() {
     try {
-        const user = await apiFetch(`/people/${userId}`);
-        userInfoDetails.innerHTML = `
-            <p><strong>Name:</strong> ${user.name}</p>
-            <p><strong>Address:</strong> ${user.address}</p>
-            <p><strong>Age:</strong> ${user.age}</p>
-            <p><strong>User ID:</strong> ${user.id}</p>
-        `;
+        renderMyInfo(await apiFetch(`/people/${userId}`));
     } catch (error) {
         console.error('Failed to load my info:', error.message);
         userInfoDetails.innerHTML = '<p>Could not load user information.</p>';
     }
 }
 
+function renderMyInfo(user) {
+    userInfoDetails.innerHTML = `
+        <p><strong>Name:</strong> ${user.name}</p>
+        <p><strong>Address:</strong> ${user.address}</p>
+        <p><strong>Age:</strong> ${user.age}</p>
+        <p><strong>User ID:</strong> ${user.id}</p>
+    `;
+}
+
 /**
- * Loads all data required for the client dashboard.
+ * Loads all data required for the client dashboard: user-service returns the profile and the
+ * device list together (devices is null when device-service did not answer).
  */
-async function loadClientData() {
+async function loadClientDashboard() {
     try {
-        const devices = await apiFetch(`/devices/user/${userId}`);
-        clientDeviceListContainer.innerHTML = '';
-        if (devices.length === 0) {
-            clientDeviceListContainer.innerHTML = '<p>You have no devices assigned to you.</p>';
-            return;
+        const dashboard = await apiFetch(`/people/${userId}/dashboard`);
+        renderMyInfo(dashboard.person);
+        if (dashboard.devicesAvailable) {
+            renderClientDevices(dashboard.devices);
+        } else {
+            clientDeviceListContainer.innerHTML = '<p>Could not load devices.</p>';
         }
-
-        devices.forEach(device => {
-            const card = document.createElement('div');
-            card.className = 'device-card';
-            card.innerHTML = `
-                <h4>${device.name}</h4>
-                <p><strong>Max Consumption:</strong> ${device.consumption} kWh</p>
-                <p><strong>ID:</strong> ${device.id}</p>
-                <button class="view-device-details-btn" data-id="${device.id}">View Details</button>
-            `;
-            clientDeviceListContainer.appendChild(card);
-        });
     } catch (error) {
-        console.error('Failed to load client devices:', error.message);
+        console.error('Failed to load dashboard:', error.message);
+        userInfoDetails.innerHTML = '<p>Could not load user information.</p>';
         clientDeviceListContainer.innerHTML = '<p>Could not load devices.</p>';
     }
 }
 
+function renderClientDevices(devices) {
+    clientDeviceListContainer.innerHTML = '';
+    if (devices.length === 0) {
+        clientDeviceListContainer.innerHTML = '<p>You have no devices assigned to you.</p>';
+        return;
+    }
+
+    devices.forEach(device => {
+        const card = document.createElement('div');
+        card.className = 'device-card';
+        card.innerHTML = `
+            <h4>${device.name}</h4>
+            <p><strong>Max Consumption:</strong> ${device.consumption} kWh</p>
+            <p><strong>ID:</strong> ${device.id}</p>
+            <button class="view-device-details-btn" data-id="${device.id}">View Details</button>
+        `;
+        clientDeviceListContainer.appendChild(card);
+    });
+}
+
 /**
  * Loads all data for the admin dashboard.
  */
@@ -520,13 +538,20 @@ async function requestAdmin() {
 }
 
 /**
- * (Admin) Fetches and renders all users.
+ * (Admin) Fetches and renders users one page at a time; append = true loads the next page.
  */
-async function loadAllUsers() {
+async function loadAllUsers(append = false) {
     try {
-        const users = await apiFetch('/people');
-        allUsersCache = users; // Cache for assignment modal
-        adminUserListBody.innerHTML = '';
+        const query = new URLSearchParams({ limit: USERS_PAGE_SIZE });
+        if (append && nextUsersCursor) {
+            query.set('after', nextUsersCursor);
+        }
+        const { data: users, headers } = await apiFetch(`/people?${query}`, {}, 'withHeaders');
+        nextUsersCursor = headers.get('X-Next-Cursor');
+        loadMoreUsersButton.classList.toggle('hidden', !nextUsersCursor);
+        if (!append) {
+            adminUserListBody.innerHTML = '';
+        }
         users.forEach(user => {
             const row = document.createElement('tr');
             row.innerHTML = `
@@ -808,18 +833,49 @@ async function handleDeleteDevice(id) {
 function showAssignDeviceModal(deviceId) {
     assignDeviceForm.reset();
     document.getElementById('assign-device-id').value = deviceId;
+    assignDeviceModal.classList.remove('hidden');
+    loadAssignableUsers('');
+}
 
-    // Populate user dropdown from cache
+/**
+ * Fills the assignment dropdown from its own /people query, so users beyond the pages loaded
+ * in the admin table can be found by typing the start of their name.
+ */
+async function loadAssignableUsers(namePrefix) {
     const userSelect = document.getElementById('user-select-dropdown');
-    userSelect.innerHTML = '<option value="">-- Select a User --</option>'; // Reset
-    allUsersCache.forEach(user => {
-        const option = document.createElement('option');
-        option.value = user.id;
-        option.textContent = `${user.name} (ID: ${user.id})`;
-        userSelect.appendChild(option);
-    });
+    const seq = ++userSearchSeq;
+    const query = new URLSearchParams({ limit: USERS_PAGE_SIZE });
+    if (namePrefix) {
+        query.set('namePrefix', namePrefix);
+    }
+    try {
+        const { data: users, headers } = await apiFetch(`/people?${query}`, {}, 'withHeaders');
+        if (seq !== userSearchSeq) {
+            return;
+        }
+        userSelect.innerHTML = '<option value="">-- Select a User --</option>'; // Reset
+        users.forEach(user => {
+            const option = document.createElement('option');
+            option.value = user.id;
+            option.textContent = `${user.name} (ID: ${user.id})`;
+            userSelect.appendChild(option);
+        });
+        if (headers.get('X-Next-Cursor')) {
+            const more = document.createElement('option');
+            more.disabled = true;
+            more.textContent = 'More users match, refine the search...';
+            userSelect.appendChild(more);
+        }
+    } catch (error) {
+        console.error('Failed to load users for assignment:', error.message);
+        userSelect.innerHTML = '<option value="">-- Could not load users --</option>';
+    }
+}
 
-    assignDeviceModal.classList.remove('hidden');
+function handleUserSearchInput(e) {
+    clearTimeout(userSearchTimer);
+    const namePrefix = e.target.value.trim();
+    userSearchTimer = setTimeout(() => loadAssignableUsers(namePrefix), 250);
 }
 
 async function handleAssignDeviceSubmit(e) {
@@ -1314,6 +1370,10 @@ async function apiFetch(endpoint, options = {}, responseType = 'json') {
         return response.text();
     }
 
+    if (responseType === 'withHeaders') {
+        return { data: await response.json(), headers: response.headers };
+    }
+
     // Check if response has content before trying to parse JSON
     const contentType = response.headers.get('content-type');
     if (contentType && contentType.includes('application/json')) {
@@ -0,0 +1,126 @@
+"""
+Closed-loop HTTP load test for the Spring Boot services.
+
+Runs a fixed number of concurrent clients against one endpoint for a fixed time per
+concurrency level and prints throughput and latency percentiles. Run it once per execution
+mode and compare, e.g. for user-service:
+
+    VIRTUAL_THREADS=false  ->  python load_test.py --label platform-1-thread
+    VIRTUAL_THREADS=true   ->  python load_test.py --label virtual-threads
+
+Results are appended to load_test_results.json so runs can be compared side by side.
+"""
+import argparse
+import asyncio
+import json
+import ssl
+import time
+
+import aiohttp
+
+
+def percentile(sorted_values, p):
+    if not sorted_values:
+        return 0.0
+    index = min(len(sorted_values) - 1, int(round(p / 100 * (len(sorted_values) - 1))))
+    return sorted_values[index]
+
+
+async def fetch_token(session, base_url, username, password):
+    async with session.post(f"{base_url}/auth/token", auth=aiohttp.BasicAuth(username, password)) as response:
+        response.raise_for_status()
+        return await response.text()
+
+
+async def fetch_user_id(session, base_url, token):
+    headers = {"Authorization": f"Bearer {token}"}
+    async with session.post(f"{base_url}/auth/introspect/batch", json=[token], headers=headers) as response:
+        response.raise_for_status()
+        return (await response.json())[0]["userId"]
+
+
+async def client(session, url, headers, deadline, latencies, errors):
+    while time.perf_counter() < deadline:
+        start = time.perf_counter()
+        try:
+            async with session.get(url, headers=headers) as response:
+                await response.read()
+                if response.status >= 400:
+                    errors.append(response.status)
+                    continue
+        except aiohttp.ClientError as e:
+            errors.append(type(e).__name__)
+            continue
+        latencies.append((time.perf_counter() - start) * 1000)
+
+
+async def run_level(session, url, headers, concurrency, duration):
+    latencies, errors = [], []
+    deadline = time.perf_counter() + duration
+    await asyncio.gather(*(client(session, url, headers, deadline, latencies, errors) for _ in range(concurrency)))
+    latencies.sort()
+    return {
+        "concurrency": concurrency,
+        "requests": len(latencies),
+        "errors": len(errors),
+        "rps": len(latencies) / duration,
+        "p50_ms": percentile(latencies, 50),
+        "p95_ms": percentile(latencies, 95),
+        "p99_ms": percentile(latencies, 99),
+    }
+
+
+async def main(args):
+    ssl_context = ssl.create_default_context()
+    if args.insecure:
+        ssl_context.check_hostname = False
+        ssl_context.verify_mode = ssl.CERT_NONE
+
+    connector = aiohttp.TCPConnector(ssl=ssl_context, limit=0)
+    timeout = aiohttp.ClientTimeout(total=args.timeout)
+    async with aiohttp.ClientSession(connector=connector, timeout=timeout) as session:
+        token = args.token or await fetch_token(session, args.auth_url or args.base_url, args.username, args.password)
+        path = args.path
+        if "{user_id}" in path:
+            path = path.replace("{user_id}", await fetch_user_id(session, args.auth_url or args.base_url, token))
+        url = args.base_url + path
+        headers = {"Authorization": f"Bearer {token}"}
+
+        # warm up JIT, connection pools and caches before measuring
+        await run_level(session, url, headers, max(args.concurrency), args.warmup)
+
+        results = []
+        print(f"{args.label}: GET {url}")
+        print(f"{'clients':>8} {'req/s':>10} {'p50 ms':>9} {'p95 ms':>9} {'p99 ms':>9} {'errors':>7}")
+        for concurrency in args.concurrency:
+            result = await run_level(session, url, headers, concurrency, args.duration)
+            results.append(result)
+            print(f"{concurrency:>8} {result['rps']:>10.1f} {result['p50_ms']:>9.1f} "
+                  f"{result['p95_ms']:>9.1f} {result['p99_ms']:>9.1f} {result['errors']:>7}")
+
+    try:
+        with open(args.out) as f:
+            history = json.load(f)
+    except (FileNotFoundError, json.JSONDecodeError):
+        history = {}
+    history[args.label] = {"url": url, "results": results}
+    with open(args.out, "w") as f:
+        json.dump(history, f, indent=2)
+
+
+if __name__ == "__main__":
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--base-url", default="https://localhost", help="nginx, or a service port such as http://localhost:2000")
+    parser.add_argument("--auth-url", help="where /auth lives if --base-url points at a single service, e.g. http://localhost:4000")
+    parser.add_argument("--path", default="/people/{user_id}")
+    parser.add_argument("--username", default="admin")
+    parser.add_argument("--password", default="admin")
+    parser.add_argument("--token", help="use this bearer token instead of logging in")
+    parser.add_argument("--concurrency", type=lambda s: [int(c) for c in s.split(",")], default=[1, 8, 32, 128])
+    parser.add_argument("--duration", type=float, default=15, help="seconds per concurrency level")
+    parser.add_argument("--warmup", type=float, default=5)
+    parser.add_argument("--timeout", type=float, default=30)
+    parser.add_argument("--label", default="run")
+    parser.add_argument("--out", default="load_test_results.json")
+    parser.add_argument("--insecure", action="store_true", help="accept nginx's self-signed certificate")
+    asyncio.run(main(parser.parse_args()))
@@ -0,0 +1,117 @@
+"""
+Startup-time comparison for the Spring Boot service images.
+
+Each image is built with Spring AOT bean definitions and a CDS archive (see the service
+Dockerfiles). This script starts the same image repeatedly in two modes and reads the
+"Started ... in N seconds (process running for M)" line the application logs once it is ready:
+
+    baseline   JAVA_STARTUP_OPTS= (no AOT, no CDS archive)
+    optimized  the image default (-XX:SharedArchiveFile=... -Dspring.aot.enabled=true)
+
+The containers need their database and broker, so attach them to the stack network, e.g.
+
+    python startup_benchmark.py --image ds-user-service:latest --network ds_app_net \
+        --env DB_IP=user_db --runs 5
+
+Results are appended to startup_results.json, keyed by image.
+"""
+import argparse
+import json
+import re
+import statistics
+import subprocess
+import time
+
+STARTED = re.compile(r"Started \S+ in ([\d.]+) seconds \(process running for ([\d.]+)\)")
+
+MODES = {
+    "baseline": ["-e", "JAVA_STARTUP_OPTS="],
+    "optimized": [],
+}
+
+
+def docker(*args):
+    return subprocess.run(["docker", *args], check=True, capture_output=True, text=True).stdout.strip()
+
+
+def start_once(image, network, env, mode_args, timeout):
+    command = ["run", "-d"]
+    if network:
+        command += ["--network", network]
+    for entry in env:
+        command += ["-e", entry]
+    command += mode_args + [image]
+
+    start = time.perf_counter()
+    container = docker(*command)
+    try:
+        while time.perf_counter() - start < timeout:
+            logs = subprocess.run(["docker", "logs", container], capture_output=True, text=True)
+            match = STARTED.search(logs.stdout + logs.stderr)
+            if match:
+                return {
+                    "context_seconds": float(match.group(1)),
+                    "process_seconds": float(match.group(2)),
+                    "wall_seconds": time.perf_counter() - start,
+                }
+            if docker("inspect", "-f", "{{.State.Running}}", container) != "true":
+                raise RuntimeError(f"{image} exited before it was ready:\n{logs.stdout}{logs.stderr}")
+            time.sleep(0.1)
+        raise TimeoutError(f"{image} not ready after {timeout}s")
+    finally:
+        subprocess.run(["docker", "rm", "-f", container], capture_output=True)
+
+
+def summarize(samples):
+    return {
+        key: {
+            "median": round(statistics.median(s[key] for s in samples), 3),
+            "min": round(min(s[key] for s in samples), 3),
+            "max": round(max(s[key] for s in samples), 3),
+        }
+        for key in ("context_seconds", "process_seconds", "wall_seconds")
+    }
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--image", required=True)
+    parser.add_argument("--network", help="docker network with the service's database and RabbitMQ")
+    parser.add_argument("--env", action="append", default=[], help="KEY=VALUE passed to the container")
+    parser.add_argument("--runs", type=int, default=5)
+    parser.add_argument("--timeout", type=float, default=120)
+    parser.add_argument("--out", default="startup_results.json")
+    args = parser.parse_args()
+
+    results = {}
+    for mode, mode_args in MODES.items():
+        samples = []
+        for run in range(args.runs):
+            sample = start_once(args.image, args.network, args.env, mode_args, args.timeout)
+            print(f"{mode:>9} run {run + 1}: started in {sample['context_seconds']:.2f}s "
+                  f"(JVM {sample['process_seconds']:.2f}s, wall {sample['wall_seconds']:.2f}s)")
+            samples.append(sample)
+        results[mode] = summarize(samples)
+
+    print()
+    print(f"{'mode':>9} {'context s':>10} {'JVM s':>8} {'wall s':>8}   (medians of {args.runs} runs)")
+    for mode, summary in results.items():
+        print(f"{mode:>9} {summary['context_seconds']['median']:>10.2f} "
+              f"{summary['process_seconds']['median']:>8.2f} {summary['wall_seconds']['median']:>8.2f}")
+    baseline = results["baseline"]["process_seconds"]["median"]
+    optimized = results["optimized"]["process_seconds"]["median"]
+    if optimized > 0:
+        print(f"\nstartup-to-ready speedup: {baseline / optimized:.2f}x")
+
+    try:
+        with open(args.out) as f:
+            stored = json.load(f)
+    except (FileNotFoundError, json.JSONDecodeError):
+        stored = {}
+    stored[args.image] = results
+    with open(args.out, "w") as f:
+        json.dump(stored, f, indent=2)
+
+
+if __name__ == "__main__":
+    main()